@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - blocks
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import net.lingala.zip4j.model.ZipParameters;
+
+/**
+ * The <code>ArchiveOutputStream</code> is the base class for streams which write zip archives. Written
+ * bytes are the content of the current entry.
+ *
+ * @author Ren Jahn
+ */
+abstract class ArchiveOutputStream extends OutputStream
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Abstract methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Starts a new entry. The size of the entry is unknown.
+	 *
+	 * @param pName the entry name
+	 * @param pParameters the parameters with compression and encryption settings, may be changed by the stream
+	 * @throws IOException if starting the entry fails
+	 */
+	public abstract void putNextEntry(String pName, ZipParameters pParameters) throws IOException;
+
+	/**
+	 * Closes the current entry.
+	 *
+	 * @throws IOException if closing the entry fails
+	 */
+	public abstract void closeEntry() throws IOException;
+
+	/**
+	 * Ends a block of the current entry. The compressed data of the next block can be decompressed
+	 * without the data of previous blocks.
+	 *
+	 * @return the offset of the next block in the compressed, unencrypted data of the entry
+	 * @throws IOException if writing fails
+	 */
+	public abstract long flushBlock() throws IOException;
+
+	/**
+	 * Writes the central directory. The stream has to be closed afterwards.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	public abstract void finish() throws IOException;
+
+}	// ArchiveOutputStream
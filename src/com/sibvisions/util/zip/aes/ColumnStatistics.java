@@ -0,0 +1,302 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - compare mixed types, numbers by value
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * The <code>ColumnStatistics</code> contains the minimum, maximum, null count and estimated distinct count
+ * of an exported column. The distinct count is estimated with HyperLogLog, with a standard error of about
+ * 1.6 percent and 4 KB memory per column.
+ *
+ * @author Ren Jahn
+ */
+public class ColumnStatistics
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the number of hash bits which select the register. */
+	private static final int PRECISION = 12;
+
+	/** the number of registers. */
+	private static final int REGISTERS = 1 << PRECISION;
+
+	/** the column name. */
+	private String sName;
+
+	/** the minimum value. */
+	private Object oMin;
+
+	/** the maximum value. */
+	private Object oMax;
+
+	/** the HyperLogLog registers. */
+	private byte[] byRegisters = new byte[REGISTERS];
+
+	/** the number of null values. */
+	private long lNullCount;
+
+	/** whether all values were hashed. */
+	private boolean bDistinct = true;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new <code>ColumnStatistics</code>.
+	 *
+	 * @param pName the column name
+	 */
+	ColumnStatistics(String pName)
+	{
+		sName = pName;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return sName + " [min = " + oMin + ", max = " + oMax + ", nulls = " + lNullCount + ", distinct = " + getDistinctCount() + "]";
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Adds a value. Minimum and maximum are only tracked for {@link Comparable} values. LOB values, e.g.
+	 * streams, aren't counted as distinct values.
+	 *
+	 * @param pValue the value
+	 */
+	void add(Object pValue)
+	{
+		if (pValue == null)
+		{
+			lNullCount++;
+		}
+		else if (pValue instanceof byte[])
+		{
+			addHash(Arrays.hashCode((byte[])pValue));
+		}
+		else if (pValue instanceof Comparable)
+		{
+			if (oMin == null || compare(pValue, oMin) < 0)
+			{
+				oMin = pValue;
+			}
+
+			if (oMax == null || compare(pValue, oMax) > 0)
+			{
+				oMax = pValue;
+			}
+
+			addHash(pValue.hashCode());
+		}
+		else
+		{
+			bDistinct = false;
+		}
+	}
+
+	/**
+	 * Adds the hash of a value to the registers.
+	 *
+	 * @param pHash the hash code
+	 */
+	private void addHash(int pHash)
+	{
+		//spread the hash code to 64 bits (murmur3 finalizer)
+		long lHash = pHash * 0x9E3779B97F4A7C15L;
+		lHash ^= lHash >>> 33;
+		lHash *= 0xFF51AFD7ED558CCDL;
+		lHash ^= lHash >>> 33;
+		lHash *= 0xC4CEB9FE1A85EC53L;
+		lHash ^= lHash >>> 33;
+
+		int iRegister = (int)(lHash >>> (64 - PRECISION));
+
+		byte byRank = (byte)(Long.numberOfLeadingZeros((lHash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+
+		if (byRank > byRegisters[iRegister])
+		{
+			byRegisters[iRegister] = byRank;
+		}
+	}
+
+	/**
+	 * Compares two values of a column. Numbers of different types, e.g. <code>Integer</code> and
+	 * <code>BigDecimal</code>, are compared by their numeric value. Other values of different types,
+	 * e.g. <code>String</code> and <code>Timestamp</code>, have no natural order and are compared by
+	 * their string representation.
+	 *
+	 * @param pFirst the first value
+	 * @param pSecond the second value
+	 * @return the comparison result
+	 */
+	@SuppressWarnings("unchecked")
+	static int compare(Object pFirst, Object pSecond)
+	{
+		if (pFirst instanceof Comparable && pFirst.getClass().isInstance(pSecond))
+		{
+			return ((Comparable<Object>)pFirst).compareTo(pSecond);
+		}
+
+		if (pFirst instanceof Number && pSecond instanceof Number)
+		{
+			BigDecimal bdFirst = toBigDecimal((Number)pFirst);
+			BigDecimal bdSecond = toBigDecimal((Number)pSecond);
+
+			if (bdFirst != null && bdSecond != null)
+			{
+				return bdFirst.compareTo(bdSecond);
+			}
+
+			//NaN or infinite
+			return Double.compare(((Number)pFirst).doubleValue(), ((Number)pSecond).doubleValue());
+		}
+
+		return pFirst.toString().compareTo(pSecond.toString());
+	}
+
+	/**
+	 * Converts a number to a {@link BigDecimal} without loss of precision.
+	 *
+	 * @param pNumber the number
+	 * @return the decimal or <code>null</code> if the number is NaN or infinite
+	 */
+	private static BigDecimal toBigDecimal(Number pNumber)
+	{
+		if (pNumber instanceof BigDecimal)
+		{
+			return (BigDecimal)pNumber;
+		}
+
+		if (pNumber instanceof Double || pNumber instanceof Float)
+		{
+			double dValue = pNumber.doubleValue();
+
+			if (Double.isNaN(dValue) || Double.isInfinite(dValue))
+			{
+				return null;
+			}
+		}
+
+		try
+		{
+			return new BigDecimal(pNumber.toString());
+		}
+		catch (NumberFormatException nfe)
+		{
+			return BigDecimal.valueOf(pNumber.doubleValue());
+		}
+	}
+
+	/**
+	 * Gets the column name.
+	 *
+	 * @return the name
+	 */
+	public String getName()
+	{
+		return sName;
+	}
+
+	/**
+	 * Gets the minimum value.
+	 *
+	 * @return the minimum or <code>null</code> if the column has no comparable values
+	 */
+	public Object getMin()
+	{
+		return oMin;
+	}
+
+	/**
+	 * Gets the maximum value.
+	 *
+	 * @return the maximum or <code>null</code> if the column has no comparable values
+	 */
+	public Object getMax()
+	{
+		return oMax;
+	}
+
+	/**
+	 * Gets the number of <code>null</code> values.
+	 *
+	 * @return the number of <code>null</code> values
+	 */
+	public long getNullCount()
+	{
+		return lNullCount;
+	}
+
+	/**
+	 * Gets the estimated number of distinct values, without <code>null</code>.
+	 *
+	 * @return the estimated number or <code>-1</code> if the column contains values which can't be
+	 *         compared, e.g. LOB streams
+	 */
+	public long getDistinctCount()
+	{
+		if (!bDistinct)
+		{
+			return -1;
+		}
+
+		double dSum = 0;
+
+		int iZeros = 0;
+
+		for (int i = 0; i < REGISTERS; i++)
+		{
+			dSum += 1d / (1L << byRegisters[i]);
+
+			if (byRegisters[i] == 0)
+			{
+				iZeros++;
+			}
+		}
+
+		double dEstimate = 0.7213 / (1 + 1.079 / REGISTERS) * REGISTERS * REGISTERS / dSum;
+
+		//linear counting is more accurate for small cardinalities
+		if (dEstimate <= 2.5 * REGISTERS && iZeros > 0)
+		{
+			dEstimate = REGISTERS * Math.log((double)REGISTERS / iZeros);
+		}
+
+		return Math.round(dEstimate);
+	}
+
+}	// ColumnStatistics
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+
+import jvx.rad.model.ModelException;
+import jvx.rad.model.SortDefinition;
+import jvx.rad.model.condition.ICondition;
+import jvx.rad.persist.DataSourceException;
+
+import com.sibvisions.rad.persist.jdbc.DBAccess;
+import com.sibvisions.rad.persist.jdbc.DBAccess.ParameterizedStatement;
+import com.sibvisions.rad.persist.jdbc.DBStorage;
+import com.sibvisions.rad.persist.jdbc.ServerColumnMetaData;
+import com.sibvisions.rad.persist.jdbc.ServerMetaData;
+import com.sibvisions.util.type.CommonUtil;
+
+/**
+ * The <code>DBCursorStorage</code> is a {@link DBStorage} which reads all records of an export with
+ * one query. The records are read from one open result set with a fetch size, and the cursor reuses
+ * one record array for all records. The query is the same as the query of {@link DBStorage#fetch},
+ * without paging.
+ * <p>
+ * Binary and character LOB columns are read as streams, so LOBs are not loaded into memory. Some
+ * JDBC drivers, e.g. PostgreSQL, only use the fetch size if auto commit is disabled, otherwise they
+ * read all records of the result set at once.
+ *
+ * @author Ren Jahn
+ */
+public class DBCursorStorage extends DBStorage
+                             implements ICursorStorage
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the server meta data of the query. */
+	private ServerMetaData mdServer;
+
+	/** the number of records which are fetched from the database at once. */
+	private int iFetchSize = 1000;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Interface implementation
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The filter is combined with the restrict condition, and the default sort is used if no sort
+	 * is set, as for {@link DBStorage#fetch}. If the storage doesn't use a {@link DBAccess}, no
+	 * cursor is available.
+	 */
+	public IRowCursor openCursor(ICondition pFilter, SortDefinition pSort) throws DataSourceException
+	{
+		if (!isOpen())
+		{
+			throw new DataSourceException("DBStorage isn't open!");
+		}
+
+		if (!(getDBAccess() instanceof DBAccess) || mdServer == null)
+		{
+			return null;
+		}
+
+		SortDefinition sort = pSort;
+
+		if (sort == null)
+		{
+			sort = getDefaultSort();
+		}
+		else
+		{
+			checkSort(sort);
+		}
+
+		DBAccess access = (DBAccess)getDBAccess();
+
+		ParameterizedStatement statement = access.getParameterizedSelectStatement(mdServer, getBeforeQueryColumns(), getQueryColumns(),
+																				  getFromClause(), createFilter(pFilter), getWhereClause(),
+																				  getAfterWhereClause(), sort, getOrderByClause(),
+																				  getAfterOrderByClause(), 0, -1);
+
+		ResultSetCursor cursor = new ResultSetCursor(mdServer.getServerColumnMetaData(), getMetaData().getColumnMetaDataCount());
+
+		try
+		{
+			cursor.open(access, statement, iFetchSize);
+		}
+		catch (SQLException sqle)
+		{
+			cursor.close();
+
+			throw new DataSourceException("Open cursor failed: " + statement.getStatement(), sqle);
+		}
+
+		return cursor;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The server meta data are needed to create the query of a cursor.
+	 */
+	@Override
+	protected ServerMetaData createMetaData(String pBeforeQueryColumns, String[] pQueryColumns, String pFromClause,
+											String pWhereClause, String pAfterWhereClause, String pWritebackTable,
+											boolean pAutoLinkReference, boolean pLoadNotDatabaseAutoLinkValues) throws DataSourceException
+	{
+		mdServer = super.createMetaData(pBeforeQueryColumns, pQueryColumns, pFromClause, pWhereClause, pAfterWhereClause,
+										pWritebackTable, pAutoLinkReference, pLoadNotDatabaseAutoLinkValues);
+
+		return mdServer;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close()
+	{
+		super.close();
+
+		mdServer = null;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Sets the number of records which are fetched from the database at once.
+	 *
+	 * @param pFetchSize the fetch size
+	 */
+	public void setFetchSize(int pFetchSize)
+	{
+		iFetchSize = pFetchSize;
+	}
+
+	/**
+	 * Gets the number of records which are fetched from the database at once.
+	 *
+	 * @return the fetch size
+	 */
+	public int getFetchSize()
+	{
+		return iFetchSize;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Inner classes
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * The <code>ResultSetCursor</code> reads the records of an open result set into one record array.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class ResultSetCursor implements IRowCursor
+	{
+		/** the server columns of the query. */
+		private ServerColumnMetaData[] columns;
+
+		/** the statement. */
+		private PreparedStatement statement;
+
+		/** the result set. */
+		private ResultSet resultSet;
+
+		/** the current record. */
+		private Object[] oRow;
+
+		/**
+		 * Creates a new <code>ResultSetCursor</code>.
+		 *
+		 * @param pColumns the server columns of the query
+		 * @param pColumnCount the number of columns of the storage
+		 */
+		private ResultSetCursor(ServerColumnMetaData[] pColumns, int pColumnCount)
+		{
+			columns = pColumns;
+
+			//additional columns of the storage, which are not part of the query, stay null
+			oRow = new Object[Math.max(pColumnCount, pColumns.length)];
+		}
+
+		/**
+		 * Executes the query.
+		 *
+		 * @param pAccess the database access
+		 * @param pStatement the query with parameters
+		 * @param pFetchSize the fetch size
+		 * @throws SQLException if executing the query fails
+		 */
+		private void open(DBAccess pAccess, ParameterizedStatement pStatement, int pFetchSize) throws SQLException
+		{
+			statement = pAccess.getPreparedStatement(pStatement.getStatement());
+
+			Object[] oParams = pStatement.getValuesAsArray();
+
+			for (int i = 0; oParams != null && i < oParams.length; i++)
+			{
+				Object oParam = oParams[i];
+
+				if (oParam instanceof Date && !(oParam instanceof Timestamp))
+				{
+					oParam = new Timestamp(((Date)oParam).getTime());
+				}
+
+				statement.setObject(i + 1, oParam);
+			}
+
+			if (pFetchSize > 0)
+			{
+				statement.setFetchSize(pFetchSize);
+			}
+
+			resultSet = statement.executeQuery();
+		}
+
+		/**
+		 * Gets the value of a column of the current record. LOBs are read as streams, other values are
+		 * converted to the type of the column.
+		 *
+		 * @param pIndex the column index
+		 * @return the value
+		 * @throws SQLException if reading fails
+		 * @throws ModelException if the conversion fails
+		 */
+		private Object getValue(int pIndex) throws SQLException, ModelException
+		{
+			switch (columns[pIndex].getSQLType())
+			{
+				case Types.BLOB:
+				case Types.LONGVARBINARY:
+					return resultSet.getBinaryStream(pIndex + 1);
+				case Types.CLOB:
+				case Types.NCLOB:
+				case Types.LONGVARCHAR:
+				case Types.LONGNVARCHAR:
+					return resultSet.getCharacterStream(pIndex + 1);
+				default:
+					return columns[pIndex].getDataType().convertToTypeClass(resultSet.getObject(pIndex + 1));
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public boolean next() throws DataSourceException
+		{
+			try
+			{
+				if (!resultSet.next())
+				{
+					return false;
+				}
+
+				for (int i = 0; i < columns.length; i++)
+				{
+					oRow[i] = getValue(i);
+				}
+
+				return true;
+			}
+			catch (DataSourceException dse)
+			{
+				throw dse;
+			}
+			catch (Exception ex)
+			{
+				throw new DataSourceException("Read record failed!", ex);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public Object[] getRow()
+		{
+			return oRow;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void close()
+		{
+			CommonUtil.close(resultSet, statement);
+
+			resultSet = null;
+			statement = null;
+		}
+
+	}	// ResultSetCursor
+
+}	// DBCursorStorage
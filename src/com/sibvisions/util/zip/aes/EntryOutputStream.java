@@ -0,0 +1,412 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - blocks
+ *                   - sample buffer only for adaptive compression, deflate instead of store
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import net.lingala.zip4j.model.ZipParameters;
+import net.lingala.zip4j.util.Zip4jConstants;
+
+import com.sibvisions.util.ArrayUtil;
+
+/**
+ * The <code>EntryOutputStream</code> streams the data of one archive entry. If the compression is
+ * adaptive, the first bytes are buffered and compressed to measure the compression ratio, and the
+ * deflate level is chosen before the entry is written. Adaptive compression never stores entries,
+ * because stored entries with a data descriptor can't be read by stream readers, e.g.
+ * {@link java.util.zip.ZipInputStream}. Badly compressible data is deflated with the fastest level.
+ *
+ * @author Ren Jahn
+ */
+final class EntryOutputStream extends OutputStream
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** entries smaller than this size are deflated with the fastest level, without sample. */
+	private static final int MIN_DEFLATE_SIZE = 512;
+
+	/** the sample ratio at which higher compression levels don't pay off. */
+	private static final float LOW_GAIN_RATIO = 0.75f;
+
+	/** the archive stream. */
+	private ArchiveOutputStream zos;
+
+	/** the parameters template. */
+	private ZipParameters parameters;
+
+	/** the entry name. */
+	private String sName;
+
+	/** the sample buffer, only for adaptive compression. */
+	private byte[] bySample;
+
+	/** the block ends in the sample buffer. */
+	private List<Integer> liSampleBlocks;
+
+	/** the compressed offsets of all blocks after the first block. */
+	private List<Long> liBlockOffsets = new ArrayUtil<Long>();
+
+	/** the compression tradeoff. */
+	private float fTradeoff;
+
+	/** the size ratio of the compressed sample. */
+	private float fSampleRatio = -1;
+
+	/** the number of bytes in the sample buffer. */
+	private int iSampleLength;
+
+	/** the compression level. */
+	private int iLevel;
+
+	/** the number of written bytes. */
+	private long lLength;
+
+	/** whether the zip entry was started. */
+	private boolean bEntryStarted;
+
+	/** whether the stream is closed. */
+	private boolean bClosed;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new <code>EntryOutputStream</code>.
+	 *
+	 * @param pStream the archive stream
+	 * @param pParameters the parameters template with encryption settings
+	 * @param pName the entry name
+	 * @param pLevel the compression level, {@link StorageEntry#COMPRESSION_STORE} or {@link StorageEntry#COMPRESSION_ADAPTIVE}
+	 * @param pTradeoff the tradeoff between compression speed (<code>0</code>) and size (<code>1</code>),
+	 *                  for adaptive compression
+	 * @param pSampleSize the number of bytes which will be used as sample for adaptive compression
+	 */
+	EntryOutputStream(ArchiveOutputStream pStream, ZipParameters pParameters, String pName, int pLevel, float pTradeoff, int pSampleSize)
+	{
+		zos = pStream;
+		parameters = pParameters;
+		sName = pName;
+		iLevel = pLevel;
+		fTradeoff = Math.max(0f, Math.min(1f, pTradeoff));
+
+		if (iLevel == StorageEntry.COMPRESSION_ADAPTIVE)
+		{
+			bySample = new byte[Math.max(MIN_DEFLATE_SIZE, pSampleSize)];
+		}
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(int pByte) throws IOException
+	{
+		write(new byte[] {(byte)pByte}, 0, 1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(byte[] pData, int pOffset, int pLength) throws IOException
+	{
+		if (bClosed)
+		{
+			throw new IOException("Stream is closed!");
+		}
+
+		lLength += pLength;
+
+		if (!bEntryStarted && bySample == null)
+		{
+			startEntry();
+		}
+
+		if (bEntryStarted)
+		{
+			zos.write(pData, pOffset, pLength);
+		}
+		else
+		{
+			int iCopy = Math.min(pLength, bySample.length - iSampleLength);
+
+			System.arraycopy(pData, pOffset, bySample, iSampleLength, iCopy);
+
+			iSampleLength += iCopy;
+
+			if (iSampleLength == bySample.length)
+			{
+				startEntry();
+
+				if (iCopy < pLength)
+				{
+					zos.write(pData, pOffset + iCopy, pLength - iCopy);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Closes the zip entry, but not the archive stream.
+	 *
+	 * @throws IOException if closing the entry fails
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (!bClosed)
+		{
+			if (!bEntryStarted)
+			{
+				startEntry();
+			}
+
+			zos.flush();
+
+			try
+			{
+				zos.closeEntry();
+			}
+			finally
+			{
+				bClosed = true;
+			}
+		}
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Chooses the compression, starts the zip entry and writes the buffered sample.
+	 *
+	 * @throws IOException if starting the entry fails
+	 */
+	private void startEntry() throws IOException
+	{
+		if (iLevel == StorageEntry.COMPRESSION_ADAPTIVE)
+		{
+			iLevel = selectLevel();
+		}
+
+		ZipParameters params;
+
+		try
+		{
+			params = (ZipParameters)parameters.clone();
+		}
+		catch (CloneNotSupportedException cnse)
+		{
+			throw new IOException("Can't create entry parameters!", cnse);
+		}
+
+		if (iLevel == StorageEntry.COMPRESSION_STORE)
+		{
+			params.setCompressionMethod(Zip4jConstants.COMP_STORE);
+		}
+		else
+		{
+			params.setCompressionMethod(Zip4jConstants.COMP_DEFLATE);
+			params.setCompressionLevel(iLevel);
+		}
+
+		zos.putNextEntry(sName, params);
+
+		bEntryStarted = true;
+
+		int iPos = 0;
+
+		if (liSampleBlocks != null)
+		{
+			for (int i = 0, anz = liSampleBlocks.size(), iEnd; i < anz; i++)
+			{
+				iEnd = liSampleBlocks.get(i).intValue();
+
+				zos.write(bySample, iPos, iEnd - iPos);
+
+				liBlockOffsets.add(Long.valueOf(zos.flushBlock()));
+
+				iPos = iEnd;
+			}
+
+			liSampleBlocks = null;
+		}
+
+		if (iSampleLength > iPos)
+		{
+			zos.write(bySample, iPos, iSampleLength - iPos);
+		}
+
+		bySample = null;
+	}
+
+	/**
+	 * Ends a block. The compressed data of the next block can be decompressed without the data of
+	 * previous blocks. If the entry wasn't started, the block end is applied when the sample is written.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	public void flushBlock() throws IOException
+	{
+		if (bClosed)
+		{
+			throw new IOException("Stream is closed!");
+		}
+
+		if (!bEntryStarted && bySample == null)
+		{
+			startEntry();
+		}
+
+		if (bEntryStarted)
+		{
+			liBlockOffsets.add(Long.valueOf(zos.flushBlock()));
+		}
+		else
+		{
+			if (liSampleBlocks == null)
+			{
+				liSampleBlocks = new ArrayUtil<Integer>();
+			}
+
+			liSampleBlocks.add(Integer.valueOf(iSampleLength));
+		}
+	}
+
+	/**
+	 * Gets the compressed offsets of all blocks after the first block. The offsets are relative to
+	 * the compressed, unencrypted data of the entry.
+	 *
+	 * @return the offsets
+	 */
+	public long[] getBlockOffsets()
+	{
+		long[] lOffsets = new long[liBlockOffsets.size()];
+
+		for (int i = 0; i < lOffsets.length; i++)
+		{
+			lOffsets[i] = liBlockOffsets.get(i).longValue();
+		}
+
+		return lOffsets;
+	}
+
+	/**
+	 * Selects the compression level with the compression ratio of the sample. Data which is very small or
+	 * saves only a little will be deflated with the fastest level. Otherwise the level depends on the
+	 * tradeoff between speed and size.
+	 *
+	 * @return the deflate level
+	 */
+	private int selectLevel()
+	{
+		if (iSampleLength < MIN_DEFLATE_SIZE)
+		{
+			return Zip4jConstants.DEFLATE_LEVEL_FASTEST;
+		}
+
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+
+		try
+		{
+			deflater.setInput(bySample, 0, iSampleLength);
+			deflater.finish();
+
+			byte[] byBuffer = new byte[8192];
+
+			while (!deflater.finished())
+			{
+				deflater.deflate(byBuffer);
+			}
+
+			fSampleRatio = (float)deflater.getBytesWritten() / iSampleLength;
+		}
+		finally
+		{
+			deflater.end();
+		}
+
+		if (fSampleRatio >= LOW_GAIN_RATIO || fTradeoff < 0.2f)
+		{
+			return Zip4jConstants.DEFLATE_LEVEL_FASTEST;
+		}
+		else if (fTradeoff < 0.4f)
+		{
+			return Zip4jConstants.DEFLATE_LEVEL_FAST;
+		}
+		else if (fTradeoff < 0.6f)
+		{
+			return Zip4jConstants.DEFLATE_LEVEL_NORMAL;
+		}
+		else if (fTradeoff < 0.8f)
+		{
+			return Zip4jConstants.DEFLATE_LEVEL_MAXIMUM;
+		}
+		else
+		{
+			return Zip4jConstants.DEFLATE_LEVEL_ULTRA;
+		}
+	}
+
+	/**
+	 * Gets the used compression level.
+	 *
+	 * @return the compression level or {@link StorageEntry#COMPRESSION_STORE}
+	 */
+	public int getLevel()
+	{
+		return iLevel;
+	}
+
+	/**
+	 * Gets the size ratio of the compressed sample.
+	 *
+	 * @return the ratio or <code>-1</code> if no sample was compressed
+	 */
+	public float getSampleRatio()
+	{
+		return fSampleRatio;
+	}
+
+	/**
+	 * Gets the number of written (uncompressed) bytes.
+	 *
+	 * @return the number of bytes
+	 */
+	public long getLength()
+	{
+		return lLength;
+	}
+
+}	// EntryOutputStream
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - column statistics
+ *                   - LOB reports
+ */
+package com.sibvisions.util.zip.aes;
+
+/**
+ * The <code>EntryReport</code> contains information about an exported archive entry. LOB columns which
+ * are written as separate entries have one report per column, named like the LOB entries without the
+ * record number. It contains the number of LOB entries, their total size, the most used compression
+ * level and the average sample ratio.
+ *
+ * @author Ren Jahn
+ */
+public class EntryReport
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the entry name. */
+	private String sName;
+
+	/** the column statistics. */
+	private ColumnStatistics[] statistics;
+
+	/** the size ratio of the compressed sample. */
+	private float fSampleRatio;
+
+	/** the compression level. */
+	private int iCompressionLevel;
+
+	/** the number of records. */
+	private long lRowCount;
+
+	/** the uncompressed size. */
+	private long lLength;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new <code>EntryReport</code>.
+	 *
+	 * @param pName the entry name
+	 * @param pCompressionLevel the used compression level
+	 * @param pSampleRatio the size ratio of the compressed sample or <code>-1</code>
+	 * @param pRowCount the number of records
+	 * @param pLength the uncompressed size
+	 * @param pStatistics the column statistics or <code>null</code>
+	 */
+	EntryReport(String pName, int pCompressionLevel, float pSampleRatio, long pRowCount, long pLength, ColumnStatistics[] pStatistics)
+	{
+		sName = pName;
+		iCompressionLevel = pCompressionLevel;
+		fSampleRatio = pSampleRatio;
+		lRowCount = pRowCount;
+		lLength = pLength;
+		statistics = pStatistics;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString()
+	{
+		return sName + " [compression = " + (iCompressionLevel == StorageEntry.COMPRESSION_STORE ? "store" : "deflate " + iCompressionLevel)
+		             + (fSampleRatio >= 0 ? ", sample ratio = " + fSampleRatio : "")
+		             + ", rows = " + lRowCount + ", size = " + lLength + "]";
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Gets the entry name.
+	 *
+	 * @return the name
+	 */
+	public String getName()
+	{
+		return sName;
+	}
+
+	/**
+	 * Gets the used compression level.
+	 *
+	 * @return {@link StorageEntry#COMPRESSION_STORE} if the entry was stored, otherwise the deflate level
+	 */
+	public int getCompressionLevel()
+	{
+		return iCompressionLevel;
+	}
+
+	/**
+	 * Gets the size ratio (compressed / uncompressed) of the sample which was used for adaptive compression.
+	 *
+	 * @return the ratio or <code>-1</code> if the compression wasn't chosen by a sample
+	 */
+	public float getSampleRatio()
+	{
+		return fSampleRatio;
+	}
+
+	/**
+	 * Gets the number of exported records.
+	 *
+	 * @return the number of records
+	 */
+	public long getRowCount()
+	{
+		return lRowCount;
+	}
+
+	/**
+	 * Gets the uncompressed size of the entry.
+	 *
+	 * @return the size in bytes
+	 */
+	public long getLength()
+	{
+		return lLength;
+	}
+
+	/**
+	 * Gets the statistics of all exported columns.
+	 *
+	 * @return the column statistics or <code>null</code> if no statistics were calculated
+	 * @see StorageEntry#setColumnStatistics(boolean)
+	 */
+	public ColumnStatistics[] getStatistics()
+	{
+		return statistics;
+	}
+
+}	// EntryReport
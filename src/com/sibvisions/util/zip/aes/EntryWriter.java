@@ -0,0 +1,1163 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - fan-out to multiple targets
+ *                   - column statistics, block index
+ *                   - target archives instead of targets
+ *                   - LOB reports
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+import jvx.rad.io.IFileHandle;
+import jvx.rad.model.SortDefinition;
+import jvx.rad.model.datatype.BinaryDataType;
+import jvx.rad.model.datatype.IDataType;
+import jvx.rad.model.datatype.StringDataType;
+import jvx.rad.persist.ColumnMetaData;
+import jvx.rad.persist.MetaData;
+
+import net.lingala.zip4j.util.Zip4jConstants;
+
+import com.sibvisions.rad.model.DataBookCSVExporter;
+import com.sibvisions.util.ArrayUtil;
+import com.sibvisions.util.type.StringUtil;
+import com.sibvisions.util.zip.aes.StorageExport.TargetArchive;
+
+/**
+ * The <code>EntryWriter</code> writes the CSV data of a {@link StorageEntry} to one or more archives. The
+ * CSV data is encoded once per separator and the encoded bytes are written to the entries of all archives
+ * with this separator. If LOB columns should be written as separate archive entries, every LOB value is
+ * streamed to its own entry of all archives and the CSV data is written to temporary files until all
+ * records were written.
+ * <p>
+ * If configured, column statistics are calculated and the CSV data is written in blocks with an index
+ * of the key ranges. Statistics and index are written as separate entries.
+ *
+ * @author Ren Jahn
+ */
+final class EntryWriter
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the buffer size for copying data. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** the data type for LOB references. */
+	private static final IDataType REFERENCE_TYPE = new StringDataType();
+
+	/** the export. */
+	private StorageExport export;
+
+	/** the entry. */
+	private StorageEntry entry;
+
+	/** the target archives. */
+	private TargetArchive[] targets;
+
+	/** the CSV encodings, one per separator. */
+	private List<Encoding> liEncodings = new ArrayUtil<Encoding>();
+
+	/** the index blocks. */
+	private List<Block> liBlocks;
+
+	/** the data types of the exported columns. */
+	private IDataType[] dataType;
+
+	/** the data type of the index column. */
+	private IDataType indexType;
+
+	/** the column statistics. */
+	private ColumnStatistics[] statistics;
+
+	/** the exported column names. */
+	private String[] sColumnNames;
+
+	/** the LOB entry names of the current record. */
+	private String[] sLobNames;
+
+	/** the LOB reports per exported column and target. */
+	private LobReport[][] lobReports;
+
+	/** the record index of every exported column. */
+	private int[] iColumnIndex;
+
+	/** the compression level. */
+	private int iLevel;
+
+	/** the record index of the index column. */
+	private int iIndexColumn;
+
+	/** the number of written records. */
+	private long lRowCount;
+
+	/** whether an exported column is written as separate entry. */
+	private boolean[] bLob;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new <code>EntryWriter</code> and writes the column names, if configured.
+	 *
+	 * @param pExport the export with compression settings
+	 * @param pTargets the target archives with archive stream, parameters and separator
+	 * @param pEntry the entry
+	 * @param pMetaData the storage meta data
+	 * @throws IOException if writing fails
+	 */
+	EntryWriter(StorageExport pExport, TargetArchive[] pTargets, StorageEntry pEntry, MetaData pMetaData) throws IOException
+	{
+		export = pExport;
+		targets = pTargets;
+		entry = pEntry;
+
+		iLevel = entry.getCompressionLevel();
+
+		if (iLevel == StorageEntry.COMPRESSION_DEFAULT)
+		{
+			iLevel = export.isAdaptiveCompression() ? StorageEntry.COMPRESSION_ADAPTIVE : Zip4jConstants.DEFLATE_LEVEL_NORMAL;
+		}
+
+		initColumns(pMetaData);
+
+		boolean bSpool = ArrayUtil.indexOf(bLob, true) >= 0;
+
+		boolean[] bEncoded = new boolean[targets.length];
+
+		Encoding enc;
+
+		OutputStream out;
+
+		for (int i = 0; i < targets.length; i++)
+		{
+			if (!bEncoded[i])
+			{
+				enc = new Encoding(targets[i].sSeparator);
+
+				//all targets with the same separator share the encoding
+				for (int j = i; j < targets.length; j++)
+				{
+					if (!bEncoded[j] && enc.sSeparator.equals(targets[j].sSeparator))
+					{
+						enc.liTargets.add(Integer.valueOf(j));
+
+						bEncoded[j] = true;
+					}
+				}
+
+				liEncodings.add(enc);
+
+				if (bSpool)
+				{
+					enc.fiSpool = File.createTempFile("entry", ".csv", export.getTempDirectory());
+					enc.fosSpool = new FileOutputStream(enc.fiSpool);
+
+					out = new BufferedOutputStream(enc.fosSpool, BUFFER_SIZE);
+				}
+				else
+				{
+					enc.eosStreams = createEntryStreams(entry.getName(), enc.liTargets);
+
+					out = createOutputStream(enc.eosStreams);
+				}
+
+				enc.oswStream = new OutputStreamWriter(out, "UTF-8");
+
+				if (entry.isShowColumnNames())
+				{
+					writeColumnNames(enc);
+				}
+			}
+		}
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Detects the record index, the data type and the LOB mode of all exported columns and the index
+	 * column.
+	 *
+	 * @param pMetaData the storage meta data
+	 * @throws IOException if the index column doesn't exist
+	 */
+	private void initColumns(MetaData pMetaData) throws IOException
+	{
+		ColumnMetaData[] cmdata = pMetaData.getColumnMetaData();
+
+		sColumnNames = entry.getColumnNames();
+
+		if (sColumnNames == null)
+		{
+			sColumnNames = pMetaData.getColumnNames();
+		}
+
+		String[] sLobColumns = entry.getLobColumnNames();
+
+		iColumnIndex = new int[sColumnNames.length];
+		dataType = new IDataType[sColumnNames.length];
+		bLob = new boolean[sColumnNames.length];
+		sLobNames = new String[sColumnNames.length];
+		lobReports = new LobReport[sColumnNames.length][];
+
+		for (int i = 0, idx; i < sColumnNames.length; i++)
+		{
+			idx = pMetaData.getColumnMetaDataIndex(sColumnNames[i]);
+
+			iColumnIndex[i] = idx;
+
+			if (idx >= 0)
+			{
+				dataType[i] = cmdata[idx].createDataType();
+
+				if (entry.isLobsAsEntries())
+				{
+					if (sLobColumns == null)
+					{
+						bLob[i] = cmdata[idx].getTypeIdentifier() == BinaryDataType.TYPE_IDENTIFIER;
+					}
+					else
+					{
+						bLob[i] = ArrayUtil.indexOf(sLobColumns, sColumnNames[i]) >= 0;
+					}
+
+					if (bLob[i])
+					{
+						lobReports[i] = new LobReport[targets.length];
+
+						for (int j = 0; j < targets.length; j++)
+						{
+							lobReports[i][j] = new LobReport();
+						}
+					}
+				}
+			}
+		}
+
+		if (entry.isColumnStatistics())
+		{
+			statistics = new ColumnStatistics[sColumnNames.length];
+
+			for (int i = 0; i < sColumnNames.length; i++)
+			{
+				statistics[i] = new ColumnStatistics(sColumnNames[i]);
+			}
+		}
+
+		if (entry.getIndexBlockSize() > 0)
+		{
+			String sIndexColumn = entry.getIndexColumnName();
+
+			if (sIndexColumn == null)
+			{
+				SortDefinition sort = entry.getSortDefinition();
+
+				if (sort != null && sort.getColumns().length > 0)
+				{
+					sIndexColumn = sort.getColumns()[0];
+				}
+				else
+				{
+					sIndexColumn = sColumnNames[0];
+				}
+			}
+
+			iIndexColumn = pMetaData.getColumnMetaDataIndex(sIndexColumn);
+
+			if (iIndexColumn < 0)
+			{
+				throw new IOException("Index column " + sIndexColumn + " doesn't exist!");
+			}
+
+			indexType = cmdata[iIndexColumn].createDataType();
+
+			liBlocks = new ArrayUtil<Block>();
+		}
+	}
+
+	/**
+	 * Writes the column labels as first record.
+	 *
+	 * @param pEncoding the encoding
+	 * @throws IOException if writing fails
+	 */
+	private void writeColumnNames(Encoding pEncoding) throws IOException
+	{
+		String[] sColumnLabels = entry.getColumnLabels();
+
+		String sLabel;
+
+		for (int i = 0; i < sColumnNames.length; i++)
+		{
+			if (i > 0)
+			{
+				pEncoding.oswStream.write(pEncoding.sSeparator);
+			}
+
+			if (sColumnLabels != null && sColumnLabels.length > i)
+			{
+				sLabel = sColumnLabels[i];
+			}
+			else
+			{
+				sLabel = null;
+			}
+
+			if (StringUtil.isEmpty(sLabel))
+			{
+				sLabel = ColumnMetaData.getDefaultLabel(sColumnNames[i]);
+			}
+
+			pEncoding.oswStream.write(sLabel);
+		}
+
+		pEncoding.oswStream.write("\n");
+	}
+
+	/**
+	 * Writes a record as CSV line to all targets. LOB values are written as separate entries and the line
+	 * contains the entry name.
+	 *
+	 * @param pData the record
+	 * @throws IOException if writing fails
+	 */
+	public void writeRow(Object[] pData) throws IOException
+	{
+		if (liBlocks != null)
+		{
+			Block block = liBlocks.isEmpty() ? null : liBlocks.get(liBlocks.size() - 1);
+
+			if (block == null || block.lRowCount == entry.getIndexBlockSize())
+			{
+				if (block != null)
+				{
+					flushBlock();
+				}
+
+				block = new Block(lRowCount);
+
+				liBlocks.add(block);
+			}
+
+			block.add(pData[iIndexColumn]);
+		}
+
+		if (statistics != null)
+		{
+			for (int j = 0; j < iColumnIndex.length; j++)
+			{
+				if (iColumnIndex[j] >= 0)
+				{
+					statistics[j].add(pData[iColumnIndex[j]]);
+				}
+			}
+		}
+
+		lRowCount++;
+
+		Object oValue;
+
+		for (int j = 0; j < iColumnIndex.length; j++)
+		{
+			if (bLob[j])
+			{
+				oValue = pData[iColumnIndex[j]];
+
+				if (oValue != null)
+				{
+					sLobNames[j] = writeLob(j, oValue);
+				}
+				else
+				{
+					sLobNames[j] = null;
+				}
+			}
+		}
+
+		for (int i = 0, anz = liEncodings.size(); i < anz; i++)
+		{
+			writeRow(liEncodings.get(i), pData);
+		}
+	}
+
+	/**
+	 * Ends the current block of all encodings. The uncompressed offset of the next block is remembered and
+	 * the entry streams are flushed, if available.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	private void flushBlock() throws IOException
+	{
+		Encoding enc;
+
+		for (int i = 0, anz = liEncodings.size(); i < anz; i++)
+		{
+			enc = liEncodings.get(i);
+
+			enc.oswStream.flush();
+
+			if (enc.fosSpool != null)
+			{
+				enc.liBlockOffsets.add(Long.valueOf(enc.fosSpool.getChannel().position()));
+			}
+			else
+			{
+				enc.liBlockOffsets.add(Long.valueOf(enc.eosStreams[0].getLength()));
+
+				for (int j = 0; j < enc.eosStreams.length; j++)
+				{
+					enc.eosStreams[j].flushBlock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes a record as CSV line with the separator of an encoding.
+	 *
+	 * @param pEncoding the encoding
+	 * @param pData the record
+	 * @throws IOException if writing fails
+	 */
+	private void writeRow(Encoding pEncoding, Object[] pData) throws IOException
+	{
+		OutputStreamWriter osw = pEncoding.oswStream;
+
+		String sSeparator = pEncoding.sSeparator;
+
+		for (int j = 0; j < iColumnIndex.length; j++)
+		{
+			if (j > 0)
+			{
+				osw.write(sSeparator);
+			}
+
+			if (iColumnIndex[j] >= 0)
+			{
+				if (bLob[j])
+				{
+					if (sLobNames[j] != null)
+					{
+						DataBookCSVExporter.writeQuoted(osw, REFERENCE_TYPE, sLobNames[j], sSeparator);
+					}
+				}
+				else
+				{
+					DataBookCSVExporter.writeQuoted(osw, dataType[j], pData[iColumnIndex[j]], sSeparator);
+				}
+			}
+		}
+
+		osw.write("\n");
+	}
+
+	/**
+	 * Writes a LOB value as separate entry of all targets. The value is streamed in chunks if the storage
+	 * delivers a stream, a {@link Blob}, a {@link Clob} or an {@link IFileHandle}.
+	 *
+	 * @param pColumn the exported column index
+	 * @param pValue the LOB value
+	 * @return the entry name
+	 * @throws IOException if writing fails
+	 */
+	private String writeLob(int pColumn, Object pValue) throws IOException
+	{
+		String sName = entry.getName() + "_lob/" + sColumnNames[pColumn] + "/" + lRowCount;
+
+		EntryOutputStream[] streams = createEntryStreams(sName, null);
+
+		OutputStream osLob = createOutputStream(streams);
+
+		try
+		{
+			if (pValue instanceof byte[])
+			{
+				osLob.write((byte[])pValue);
+			}
+			else if (pValue instanceof InputStream)
+			{
+				copy((InputStream)pValue, osLob);
+			}
+			else if (pValue instanceof IFileHandle)
+			{
+				copy(((IFileHandle)pValue).getInputStream(), osLob);
+			}
+			else if (pValue instanceof Blob)
+			{
+				try
+				{
+					copy(((Blob)pValue).getBinaryStream(), osLob);
+				}
+				catch (SQLException se)
+				{
+					throw new IOException("Can't read LOB of column " + sColumnNames[pColumn] + "!", se);
+				}
+			}
+			else
+			{
+				Writer wriLob = new OutputStreamWriter(osLob, "UTF-8");
+
+				if (pValue instanceof Reader)
+				{
+					copy((Reader)pValue, wriLob);
+				}
+				else if (pValue instanceof Clob)
+				{
+					try
+					{
+						copy(((Clob)pValue).getCharacterStream(), wriLob);
+					}
+					catch (SQLException se)
+					{
+						throw new IOException("Can't read LOB of column " + sColumnNames[pColumn] + "!", se);
+					}
+				}
+				else
+				{
+					wriLob.write(pValue.toString());
+				}
+
+				wriLob.flush();
+			}
+		}
+		finally
+		{
+			osLob.close();
+		}
+
+		for (int i = 0; i < streams.length; i++)
+		{
+			lobReports[pColumn][i].add(streams[i]);
+		}
+
+		return sName;
+	}
+
+	/**
+	 * Finishes the CSV entry of all targets. If the CSV data was written to temporary files, the files
+	 * will be copied to the archives.
+	 *
+	 * @return the entry reports, in the same order as the targets. The first report of a target is the
+	 *         report of the CSV entry, followed by one report per LOB column with LOB entries
+	 * @throws IOException if writing fails
+	 */
+	public EntryReport[][] finish() throws IOException
+	{
+		EntryReport[][] reports = new EntryReport[targets.length][];
+
+		Encoding enc;
+
+		EntryOutputStream eos;
+
+		for (int i = 0, anz = liEncodings.size(); i < anz; i++)
+		{
+			enc = liEncodings.get(i);
+
+			enc.oswStream.flush();
+			enc.oswStream.close();
+
+			if (enc.fiSpool != null)
+			{
+				enc.eosStreams = createEntryStreams(entry.getName(), enc.liTargets);
+
+				OutputStream out = createOutputStream(enc.eosStreams);
+
+				InputStream in = new FileInputStream(enc.fiSpool);
+
+				try
+				{
+					long lPos = 0;
+
+					//blocks are flushed at the same positions as while spooling
+					for (int j = 0, cnt = enc.liBlockOffsets.size(); j < cnt; j++)
+					{
+						copy(in, out, enc.liBlockOffsets.get(j).longValue() - lPos);
+
+						lPos = enc.liBlockOffsets.get(j).longValue();
+
+						for (int k = 0; k < enc.eosStreams.length; k++)
+						{
+							enc.eosStreams[k].flushBlock();
+						}
+					}
+
+					copy(in, out);
+				}
+				finally
+				{
+					in.close();
+					out.close();
+				}
+			}
+
+			for (int j = 0; j < enc.eosStreams.length; j++)
+			{
+				eos = enc.eosStreams[j];
+
+				reports[enc.liTargets.get(j).intValue()] = createReports(enc.liTargets.get(j).intValue(), eos);
+
+				if (liBlocks != null)
+				{
+					writeIndex(enc, enc.liTargets.get(j), eos);
+				}
+			}
+
+			if (statistics != null)
+			{
+				writeStatistics(enc);
+			}
+		}
+
+		return reports;
+	}
+
+	/**
+	 * Creates the reports of a target: the report of the CSV entry and one report per LOB column with
+	 * LOB entries.
+	 *
+	 * @param pTarget the target index
+	 * @param pStream the entry stream of the CSV entry
+	 * @return the reports
+	 */
+	private EntryReport[] createReports(int pTarget, EntryOutputStream pStream)
+	{
+		List<EntryReport> liReports = new ArrayUtil<EntryReport>();
+
+		liReports.add(new EntryReport(entry.getName(), pStream.getLevel(), pStream.getSampleRatio(),
+				                      lRowCount, pStream.getLength(), statistics));
+
+		for (int i = 0; i < lobReports.length; i++)
+		{
+			if (lobReports[i] != null && lobReports[i][pTarget].lCount > 0)
+			{
+				liReports.add(lobReports[i][pTarget].createReport(entry.getName() + "_lob/" + sColumnNames[i]));
+			}
+		}
+
+		return liReports.toArray(new EntryReport[liReports.size()]);
+	}
+
+	/**
+	 * Writes the index entry of a target. Every line contains the block number, the first record, the
+	 * number of records, the minimum and maximum key, the uncompressed offset and length and the compressed
+	 * offset of a block.
+	 *
+	 * @param pEncoding the encoding
+	 * @param pTarget the target index
+	 * @param pStream the finished entry stream of the target
+	 * @throws IOException if writing fails
+	 */
+	private void writeIndex(Encoding pEncoding, Integer pTarget, EntryOutputStream pStream) throws IOException
+	{
+		long[] lCompressedOffsets = pStream.getBlockOffsets();
+
+		String sSeparator = pEncoding.sSeparator;
+
+		OutputStreamWriter wri = new OutputStreamWriter(createOutputStream(createEntryStreams(entry.getName() + "_index.csv",
+				                                                                  Collections.singletonList(pTarget))), "UTF-8");
+
+		try
+		{
+			wri.write("BLOCK" + sSeparator + "FIRST_ROW" + sSeparator + "ROW_COUNT" + sSeparator + "MIN_KEY" + sSeparator + "MAX_KEY"
+					  + sSeparator + "OFFSET" + sSeparator + "LENGTH" + sSeparator + "COMPRESSED_OFFSET\n");
+
+			Block block;
+
+			long lOffset;
+			long lNextOffset;
+
+			for (int i = 0, anz = liBlocks.size(); i < anz; i++)
+			{
+				block = liBlocks.get(i);
+
+				lOffset = i == 0 ? 0 : pEncoding.liBlockOffsets.get(i - 1).longValue();
+				lNextOffset = i == anz - 1 ? pStream.getLength() : pEncoding.liBlockOffsets.get(i).longValue();
+
+				wri.write(i + sSeparator + block.lFirstRow + sSeparator + block.lRowCount + sSeparator);
+
+				DataBookCSVExporter.writeQuoted(wri, indexType, block.oMin, sSeparator);
+				wri.write(sSeparator);
+				DataBookCSVExporter.writeQuoted(wri, indexType, block.oMax, sSeparator);
+
+				wri.write(sSeparator + lOffset + sSeparator + (lNextOffset - lOffset) + sSeparator
+						  + (i == 0 ? 0 : lCompressedOffsets[i - 1]) + "\n");
+			}
+		}
+		finally
+		{
+			wri.close();
+		}
+	}
+
+	/**
+	 * Writes the statistics entry for all targets of an encoding. Every line contains the column name, the
+	 * minimum and maximum value, the number of <code>null</code> values and the estimated number of distinct
+	 * values of a column.
+	 *
+	 * @param pEncoding the encoding
+	 * @throws IOException if writing fails
+	 */
+	private void writeStatistics(Encoding pEncoding) throws IOException
+	{
+		String sSeparator = pEncoding.sSeparator;
+
+		OutputStreamWriter wri = new OutputStreamWriter(createOutputStream(createEntryStreams(entry.getName() + "_stats.csv", pEncoding.liTargets)), "UTF-8");
+
+		try
+		{
+			wri.write("COLUMN" + sSeparator + "MIN" + sSeparator + "MAX" + sSeparator + "NULL_COUNT" + sSeparator + "DISTINCT_COUNT\n");
+
+			for (int i = 0; i < statistics.length; i++)
+			{
+				DataBookCSVExporter.writeQuoted(wri, REFERENCE_TYPE, statistics[i].getName(), sSeparator);
+				wri.write(sSeparator);
+
+				if (statistics[i].getMin() != null)
+				{
+					DataBookCSVExporter.writeQuoted(wri, dataType[i], statistics[i].getMin(), sSeparator);
+				}
+
+				wri.write(sSeparator);
+
+				if (statistics[i].getMax() != null)
+				{
+					DataBookCSVExporter.writeQuoted(wri, dataType[i], statistics[i].getMax(), sSeparator);
+				}
+
+				wri.write(sSeparator + statistics[i].getNullCount() + sSeparator + statistics[i].getDistinctCount() + "\n");
+			}
+		}
+		finally
+		{
+			wri.close();
+		}
+	}
+
+	/**
+	 * Releases the temporary files, if used.
+	 */
+	public void close()
+	{
+		Encoding enc;
+
+		for (int i = 0, anz = liEncodings.size(); i < anz; i++)
+		{
+			enc = liEncodings.get(i);
+
+			if (enc.fiSpool != null)
+			{
+				try
+				{
+					enc.oswStream.close();
+				}
+				catch (IOException ioe)
+				{
+					//ignore
+				}
+
+				enc.fiSpool.delete();
+				enc.fiSpool = null;
+			}
+		}
+	}
+
+	/**
+	 * Creates the streams for a new archive entry.
+	 *
+	 * @param pName the entry name
+	 * @param pTargets the target indexes or <code>null</code> for all targets
+	 * @return the entry streams
+	 */
+	private EntryOutputStream[] createEntryStreams(String pName, List<Integer> pTargets)
+	{
+		int iCount = pTargets == null ? targets.length : pTargets.size();
+
+		EntryOutputStream[] streams = new EntryOutputStream[iCount];
+
+		TargetArchive target;
+
+		for (int i = 0; i < iCount; i++)
+		{
+			target = targets[pTargets == null ? i : pTargets.get(i).intValue()];
+
+			streams[i] = new EntryOutputStream(target.zos, target.parameters, pName, iLevel,
+					                           export.getCompressionTradeoff(), export.getCompressionSampleSize());
+		}
+
+		return streams;
+	}
+
+	/**
+	 * Creates a stream which writes to all entry streams.
+	 *
+	 * @param pStreams the entry streams
+	 * @return the stream
+	 */
+	private static OutputStream createOutputStream(EntryOutputStream[] pStreams)
+	{
+		if (pStreams.length == 1)
+		{
+			return pStreams[0];
+		}
+
+		return new TeeOutputStream(pStreams);
+	}
+
+	/**
+	 * Copies all bytes of a stream and closes the input stream.
+	 *
+	 * @param pIn the input stream
+	 * @param pOut the output stream
+	 * @throws IOException if copying fails
+	 */
+	private static void copy(InputStream pIn, OutputStream pOut) throws IOException
+	{
+		try
+		{
+			byte[] byBuffer = new byte[BUFFER_SIZE];
+
+			int iLen;
+
+			while ((iLen = pIn.read(byBuffer)) >= 0)
+			{
+				pOut.write(byBuffer, 0, iLen);
+			}
+		}
+		finally
+		{
+			pIn.close();
+		}
+	}
+
+	/**
+	 * Copies a number of bytes of a stream.
+	 *
+	 * @param pIn the input stream
+	 * @param pOut the output stream
+	 * @param pLength the number of bytes
+	 * @throws IOException if copying fails or the input stream ends
+	 */
+	private static void copy(InputStream pIn, OutputStream pOut, long pLength) throws IOException
+	{
+		byte[] byBuffer = new byte[BUFFER_SIZE];
+
+		long lRemaining = pLength;
+
+		int iLen;
+
+		while (lRemaining > 0)
+		{
+			iLen = pIn.read(byBuffer, 0, (int)Math.min(byBuffer.length, lRemaining));
+
+			if (iLen < 0)
+			{
+				throw new IOException("Unexpected end of stream!");
+			}
+
+			pOut.write(byBuffer, 0, iLen);
+
+			lRemaining -= iLen;
+		}
+	}
+
+	/**
+	 * Copies all characters of a reader and closes the reader.
+	 *
+	 * @param pIn the reader
+	 * @param pOut the writer
+	 * @throws IOException if copying fails
+	 */
+	private static void copy(Reader pIn, Writer pOut) throws IOException
+	{
+		try
+		{
+			char[] chBuffer = new char[BUFFER_SIZE / 2];
+
+			int iLen;
+
+			while ((iLen = pIn.read(chBuffer)) >= 0)
+			{
+				pOut.write(chBuffer, 0, iLen);
+			}
+		}
+		finally
+		{
+			pIn.close();
+		}
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Inner classes
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * The <code>Encoding</code> is the CSV encoding for all targets with the same separator.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class Encoding
+	{
+		/** the separator. */
+		private String sSeparator;
+
+		/** the target indexes. */
+		private List<Integer> liTargets = new ArrayUtil<Integer>();
+
+		/** the entry streams of all targets. */
+		private EntryOutputStream[] eosStreams;
+
+		/** the CSV writer. */
+		private OutputStreamWriter oswStream;
+
+		/** the uncompressed offsets of all blocks after the first block. */
+		private List<Long> liBlockOffsets = new ArrayUtil<Long>();
+
+		/** the temporary CSV file, if LOBs are written as entries. */
+		private File fiSpool;
+
+		/** the stream of the temporary CSV file. */
+		private FileOutputStream fosSpool;
+
+		/**
+		 * Creates a new <code>Encoding</code>.
+		 *
+		 * @param pSeparator the separator
+		 */
+		private Encoding(String pSeparator)
+		{
+			sSeparator = pSeparator;
+		}
+
+	}	// Encoding
+
+	/**
+	 * The <code>Block</code> is a range of records which can be decompressed independently.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class Block
+	{
+		/** the minimum key. */
+		private Object oMin;
+
+		/** the maximum key. */
+		private Object oMax;
+
+		/** the first record. */
+		private long lFirstRow;
+
+		/** the number of records. */
+		private long lRowCount;
+
+		/**
+		 * Creates a new <code>Block</code>.
+		 *
+		 * @param pFirstRow the first record
+		 */
+		private Block(long pFirstRow)
+		{
+			lFirstRow = pFirstRow;
+		}
+
+		/**
+		 * Adds a record with its key.
+		 *
+		 * @param pKey the key
+		 */
+		private void add(Object pKey)
+		{
+			lRowCount++;
+
+			if (pKey instanceof Comparable)
+			{
+				if (oMin == null || ColumnStatistics.compare(pKey, oMin) < 0)
+				{
+					oMin = pKey;
+				}
+
+				if (oMax == null || ColumnStatistics.compare(pKey, oMax) > 0)
+				{
+					oMax = pKey;
+				}
+			}
+		}
+
+	}	// Block
+
+	/**
+	 * The <code>TeeOutputStream</code> writes all bytes to multiple entry streams.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class TeeOutputStream extends OutputStream
+	{
+		/** the entry streams. */
+		private EntryOutputStream[] streams;
+
+		/**
+		 * Creates a new <code>TeeOutputStream</code>.
+		 *
+		 * @param pStreams the entry streams
+		 */
+		private TeeOutputStream(EntryOutputStream[] pStreams)
+		{
+			streams = pStreams;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void write(int pByte) throws IOException
+		{
+			for (int i = 0; i < streams.length; i++)
+			{
+				streams[i].write(pByte);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void write(byte[] pData, int pOffset, int pLength) throws IOException
+		{
+			for (int i = 0; i < streams.length; i++)
+			{
+				streams[i].write(pData, pOffset, pLength);
+			}
+		}
+
+		/**
+		 * Closes all entry streams.
+		 *
+		 * @throws IOException if closing an entry fails
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			IOException ioeFirst = null;
+
+			for (int i = 0; i < streams.length; i++)
+			{
+				try
+				{
+					streams[i].close();
+				}
+				catch (IOException ioe)
+				{
+					if (ioeFirst == null)
+					{
+						ioeFirst = ioe;
+					}
+				}
+			}
+
+			if (ioeFirst != null)
+			{
+				throw ioeFirst;
+			}
+		}
+
+	}	// TeeOutputStream
+
+	/**
+	 * The <code>LobReport</code> summarizes the LOB entries of one column and target.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class LobReport
+	{
+		/** the number of entries per compression level. */
+		private long[] lLevelCounts = new long[10];
+
+		/** the sum of the sample ratios. */
+		private double dSampleRatios;
+
+		/** the number of LOB entries. */
+		private long lCount;
+
+		/** the number of LOB entries with sample ratio. */
+		private long lSampled;
+
+		/** the uncompressed size of all LOB entries. */
+		private long lLength;
+
+		/**
+		 * Adds a written LOB entry.
+		 *
+		 * @param pStream the entry stream
+		 */
+		private void add(EntryOutputStream pStream)
+		{
+			lCount++;
+			lLength += pStream.getLength();
+			lLevelCounts[pStream.getLevel()]++;
+
+			if (pStream.getSampleRatio() >= 0)
+			{
+				dSampleRatios += pStream.getSampleRatio();
+				lSampled++;
+			}
+		}
+
+		/**
+		 * Creates the report with the most used compression level and the average sample ratio.
+		 *
+		 * @param pName the report name
+		 * @return the report
+		 */
+		private EntryReport createReport(String pName)
+		{
+			int iLevel = 0;
+
+			for (int i = 1; i < lLevelCounts.length; i++)
+			{
+				if (lLevelCounts[i] > lLevelCounts[iLevel])
+				{
+					iLevel = i;
+				}
+			}
+
+			return new EntryReport(pName, iLevel, lSampled > 0 ? (float)(dSampleRatios / lSampled) : -1, lCount, lLength, null);
+		}
+
+	}	// LobReport
+
+}	// EntryWriter
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - no export state
+ *                   - no reports, the export returns them
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.OutputStream;
+
+import net.lingala.zip4j.model.ZipParameters;
+
+/**
+ * The <code>ExportTarget</code> defines one archive of a fan-out export. All targets of an export get
+ * the same entries, but every target has its own stream, password, separator and zip parameters. Settings
+ * which are not set are taken from the {@link StorageExport}.
+ *
+ * @author Ren Jahn
+ * @see StorageExport#export(ExportTarget...)
+ */
+public class ExportTarget
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the output stream. */
+	private OutputStream stream;
+
+	/** the zip parameters. */
+	private ZipParameters parameters;
+
+	/** the password. */
+	private String sPassword;
+
+	/** the separator character. */
+	private String sSeparator;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new <code>ExportTarget</code> with the password and separator of the export.
+	 *
+	 * @param pStream the output stream
+	 */
+	public ExportTarget(OutputStream pStream)
+	{
+		this(pStream, null, null);
+	}
+
+	/**
+	 * Creates a new <code>ExportTarget</code> with the separator of the export.
+	 *
+	 * @param pStream the output stream
+	 * @param pPassword the archive password
+	 */
+	public ExportTarget(OutputStream pStream, String pPassword)
+	{
+		this(pStream, pPassword, null);
+	}
+
+	/**
+	 * Creates a new <code>ExportTarget</code>.
+	 *
+	 * @param pStream the output stream
+	 * @param pPassword the archive password or <code>null</code> to use the password of the export
+	 * @param pSeparator the separator or <code>null</code> to use the separator of the export
+	 */
+	public ExportTarget(OutputStream pStream, String pPassword, String pSeparator)
+	{
+		stream = pStream;
+		sPassword = pPassword;
+		sSeparator = pSeparator;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Gets the output stream.
+	 *
+	 * @return the stream
+	 */
+	public OutputStream getStream()
+	{
+		return stream;
+	}
+
+	/**
+	 * Sets the archive password.
+	 *
+	 * @param pPassword the password or <code>null</code> to use the password of the export
+	 */
+	public void setPassword(String pPassword)
+	{
+		sPassword = pPassword;
+	}
+
+	/**
+	 * Gets the archive password.
+	 *
+	 * @return the password or <code>null</code> if the password of the export is used
+	 */
+	public String getPassword()
+	{
+		return sPassword;
+	}
+
+	/**
+	 * Sets the separator character.
+	 *
+	 * @param pSeparator the separator or <code>null</code> to use the separator of the export
+	 */
+	public void setSeparator(String pSeparator)
+	{
+		sSeparator = pSeparator;
+	}
+
+	/**
+	 * Gets the separator character.
+	 *
+	 * @return the separator or <code>null</code> if the separator of the export is used
+	 */
+	public String getSeparator()
+	{
+		return sSeparator;
+	}
+
+	/**
+	 * Sets the zip parameters, e.g. for another encryption method or key strength. Only the password and the
+	 * encryption settings are used. The compression method and level are always set per entry, see
+	 * {@link StorageEntry#setCompressionLevel(int)}, and the entry name is set per entry. The password of
+	 * this target, if set, replaces the password of the parameters. If the parameters have no password, the
+	 * password of the export is used. If a password is available, the entries are always encrypted, with
+	 * AES-256 unless the parameters request standard zip encryption or another AES key strength.
+	 *
+	 * @param pParameters the parameters or <code>null</code> to use the default parameters
+	 */
+	public void setParameters(ZipParameters pParameters)
+	{
+		parameters = pParameters;
+	}
+
+	/**
+	 * Gets the zip parameters.
+	 *
+	 * @return the parameters or <code>null</code> if the default parameters are used
+	 */
+	public ZipParameters getParameters()
+	{
+		return parameters;
+	}
+
+}	// ExportTarget
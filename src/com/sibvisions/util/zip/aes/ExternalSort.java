@@ -0,0 +1,1009 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - limited merge fan-in, checked run length
+ *                   - memory bound, LOB values
+ *                   - numbers of different types by value
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import jvx.rad.io.IFileHandle;
+import jvx.rad.model.SortDefinition;
+import jvx.rad.persist.DataSourceException;
+import jvx.rad.persist.MetaData;
+
+/**
+ * The <code>ExternalSort</code> sorts records independent of the storage. The records are collected
+ * in runs. A run is full if it has the maximum number of records or if the estimated size of its records
+ * reaches the memory limit. Every full run is sorted in memory and written to a temporary file. Reading
+ * merges all runs, so the memory usage depends on the run size and not on the number of records.
+ * At most {@link #MAX_FAN_IN} runs are merged at once. If there are more runs, they are merged in
+ * intermediate passes to fewer, longer runs.
+ * <p>
+ * LOB values, e.g. streams, readers, {@link Blob}, {@link Clob} or {@link IFileHandle}, are read when
+ * the record is added, because they may be invalid after the storage read the next record. The data is
+ * written to a temporary file and the record contains a {@link LobStream} instead of the value. Text
+ * LOBs are stored UTF-8 encoded.
+ *
+ * @author Ren Jahn
+ */
+final class ExternalSort
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the buffer size for run files. */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** the maximum number of runs which are merged at once. */
+	static final int MAX_FAN_IN = 64;
+
+	/** the record comparator. */
+	private RowComparator comparator;
+
+	/** the run comparator for merging. */
+	private Comparator<RunReader> cmpMerge;
+
+	/** the temp directory for run files. */
+	private File fiTempDirectory;
+
+	/** the current run. */
+	private List<Object[]> liRun;
+
+	/** the runs to merge. */
+	private List<Run> liRuns = new ArrayList<Run>();
+
+	/** all temporary files. */
+	private List<File> liTempFiles = new ArrayList<File>();
+
+	/** the merge queue. */
+	private PriorityQueue<RunReader> pqMerge;
+
+	/** the temporary file for LOB values. */
+	private File fiLobs;
+
+	/** the output stream for LOB values. */
+	private OutputStream osLobs;
+
+	/** the length of the LOB file. */
+	private long lLobLength;
+
+	/** the maximum number of records per run. */
+	private int iRunSize;
+
+	/** the maximum estimated size of the records of a run, in bytes. */
+	private long lRunMemory;
+
+	/** the estimated size of the records of the current run, in bytes. */
+	private long lRunBytes;
+
+	/** the read position in the current run, if all records were sorted in memory. */
+	private int iReadPos = -1;
+
+	/** the number of runs written to temporary files. */
+	private int iRunCount;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new <code>ExternalSort</code>.
+	 *
+	 * @param pMetaData the storage meta data
+	 * @param pSort the sort definition
+	 * @param pRunSize the maximum number of records which will be sorted in memory
+	 * @param pRunMemory the maximum estimated size of the records which will be sorted in memory, in bytes
+	 * @param pTempDirectory the directory for temporary files or <code>null</code> to use the default temp directory
+	 * @throws DataSourceException if a sort column does not exist
+	 */
+	ExternalSort(MetaData pMetaData, SortDefinition pSort, int pRunSize, long pRunMemory, File pTempDirectory) throws DataSourceException
+	{
+		comparator = new RowComparator(pMetaData, pSort);
+
+		cmpMerge = new Comparator<RunReader>()
+		{
+			public int compare(RunReader pFirst, RunReader pSecond)
+			{
+				int iResult = comparator.compare(pFirst.row, pSecond.row);
+
+				if (iResult == 0)
+				{
+					//keep the order of equal records
+					iResult = pFirst.index - pSecond.index;
+				}
+
+				return iResult;
+			}
+		};
+
+		iRunSize = Math.max(1, pRunSize);
+		lRunMemory = Math.max(1, pRunMemory);
+		fiTempDirectory = pTempDirectory;
+
+		liRun = new ArrayList<Object[]>(Math.min(iRunSize, 10000));
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Adds a record. LOB values are replaced with a {@link LobStream}. If the current run is full, it will
+	 * be sorted and written to a temporary file.
+	 *
+	 * @param pRow the record, will be changed if it contains LOB values
+	 * @throws IOException if writing the run or reading a LOB value fails
+	 */
+	public void add(Object[] pRow) throws IOException
+	{
+		for (int i = 0; i < pRow.length; i++)
+		{
+			if (isLob(pRow[i]))
+			{
+				pRow[i] = writeLob(pRow[i]);
+			}
+		}
+
+		liRun.add(pRow);
+
+		lRunBytes += estimateSize(pRow);
+
+		if (liRun.size() >= iRunSize || lRunBytes >= lRunMemory)
+		{
+			spill();
+		}
+	}
+
+	/**
+	 * Finishes adding records and prepares reading. Records are merged from all runs if
+	 * runs were written to temporary files.
+	 *
+	 * @throws IOException if writing the last run or opening the runs fails
+	 */
+	public void finish() throws IOException
+	{
+		if (osLobs != null)
+		{
+			osLobs.close();
+			osLobs = null;
+		}
+
+		if (liRuns.isEmpty())
+		{
+			Collections.sort(liRun, comparator);
+
+			iReadPos = 0;
+		}
+		else
+		{
+			if (!liRun.isEmpty())
+			{
+				spill();
+			}
+
+			liRun = null;
+
+			while (liRuns.size() > MAX_FAN_IN)
+			{
+				mergePass();
+			}
+
+			pqMerge = open(liRuns);
+		}
+	}
+
+	/**
+	 * Gets the next record in sort order.
+	 *
+	 * @return the record or <code>null</code> if all records were read
+	 * @throws IOException if reading a run fails
+	 */
+	public Object[] next() throws IOException
+	{
+		if (iReadPos >= 0)
+		{
+			if (iReadPos < liRun.size())
+			{
+				Object[] oRow = liRun.get(iReadPos);
+
+				//release reference for gc
+				liRun.set(iReadPos++, null);
+
+				return oRow;
+			}
+
+			return null;
+		}
+
+		RunReader reader = pqMerge.poll();
+
+		if (reader == null)
+		{
+			return null;
+		}
+
+		Object[] oRow = reader.row;
+
+		if (reader.next())
+		{
+			pqMerge.add(reader);
+		}
+
+		return oRow;
+	}
+
+	/**
+	 * Closes all runs and deletes the temporary files.
+	 */
+	public void close()
+	{
+		if (osLobs != null)
+		{
+			try
+			{
+				osLobs.close();
+			}
+			catch (IOException ioe)
+			{
+				//ignore
+			}
+
+			osLobs = null;
+		}
+
+		if (pqMerge != null)
+		{
+			for (RunReader reader : pqMerge)
+			{
+				reader.close();
+			}
+
+			pqMerge = null;
+		}
+
+		for (File file : liTempFiles)
+		{
+			file.delete();
+		}
+
+		liTempFiles.clear();
+		liRuns.clear();
+
+		liRun = null;
+	}
+
+	/**
+	 * Gets the number of runs written to temporary files.
+	 *
+	 * @return the number of runs
+	 */
+	public int getRunCount()
+	{
+		return iRunCount;
+	}
+
+	/**
+	 * Sorts the current run and writes it to a temporary file.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	private void spill() throws IOException
+	{
+		Collections.sort(liRun, comparator);
+
+		Run run = createRun();
+
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run.file), BUFFER_SIZE));
+
+		try
+		{
+			for (int i = 0, anz = liRun.size(); i < anz; i++)
+			{
+				RowFormat.write(dos, liRun.get(i));
+			}
+		}
+		finally
+		{
+			dos.close();
+		}
+
+		run.records = liRun.size();
+
+		liRuns.add(run);
+
+		iRunCount++;
+
+		liRun.clear();
+
+		lRunBytes = 0;
+	}
+
+	/**
+	 * Gets whether a value is a LOB which has to be read before the next record.
+	 *
+	 * @param pValue the value
+	 * @return <code>true</code> if the value is a stream, reader, {@link Blob}, {@link Clob} or {@link IFileHandle}
+	 */
+	private static boolean isLob(Object pValue)
+	{
+		return (pValue instanceof InputStream && !(pValue instanceof LobStream))
+			   || pValue instanceof Reader
+			   || pValue instanceof Blob
+			   || pValue instanceof Clob
+			   || pValue instanceof IFileHandle;
+	}
+
+	/**
+	 * Writes a LOB value to the LOB file.
+	 *
+	 * @param pValue the LOB value
+	 * @return the stream which reads the value from the LOB file
+	 * @throws IOException if reading the value or writing the file fails
+	 */
+	private LobStream writeLob(Object pValue) throws IOException
+	{
+		if (osLobs == null)
+		{
+			if (fiLobs != null)
+			{
+				throw new IOException("Records can't be added after finish!");
+			}
+
+			fiLobs = File.createTempFile("sort", ".lob", fiTempDirectory);
+
+			liTempFiles.add(fiLobs);
+
+			osLobs = new BufferedOutputStream(new FileOutputStream(fiLobs), BUFFER_SIZE);
+		}
+
+		CountingOutputStream cos = new CountingOutputStream(osLobs);
+
+		try
+		{
+			if (pValue instanceof InputStream)
+			{
+				copy((InputStream)pValue, cos);
+			}
+			else if (pValue instanceof IFileHandle)
+			{
+				copy(((IFileHandle)pValue).getInputStream(), cos);
+			}
+			else if (pValue instanceof Blob)
+			{
+				copy(((Blob)pValue).getBinaryStream(), cos);
+			}
+			else
+			{
+				Reader reader = pValue instanceof Clob ? ((Clob)pValue).getCharacterStream() : (Reader)pValue;
+
+				Writer writer = new OutputStreamWriter(cos, "UTF-8");
+
+				try
+				{
+					char[] chBuffer = new char[BUFFER_SIZE / 2];
+
+					int iLen;
+
+					while ((iLen = reader.read(chBuffer)) >= 0)
+					{
+						writer.write(chBuffer, 0, iLen);
+					}
+				}
+				finally
+				{
+					reader.close();
+				}
+
+				writer.flush();
+			}
+		}
+		catch (SQLException se)
+		{
+			throw new IOException("Can't read LOB value!", se);
+		}
+
+		LobStream stream = new LobStream(fiLobs, lLobLength, cos.lLength);
+
+		lLobLength += cos.lLength;
+
+		return stream;
+	}
+
+	/**
+	 * Copies all bytes of a stream and closes the stream.
+	 *
+	 * @param pIn the input stream
+	 * @param pOut the output stream
+	 * @throws IOException if copying fails
+	 */
+	private static void copy(InputStream pIn, OutputStream pOut) throws IOException
+	{
+		try
+		{
+			byte[] byBuffer = new byte[BUFFER_SIZE];
+
+			int iLen;
+
+			while ((iLen = pIn.read(byBuffer)) >= 0)
+			{
+				pOut.write(byBuffer, 0, iLen);
+			}
+		}
+		finally
+		{
+			pIn.close();
+		}
+	}
+
+	/**
+	 * Estimates the heap size of a record.
+	 *
+	 * @param pRow the record
+	 * @return the estimated size in bytes
+	 */
+	static long estimateSize(Object[] pRow)
+	{
+		//array header and references
+		long lSize = 16 + 8L * pRow.length;
+
+		Object oValue;
+
+		for (int i = 0; i < pRow.length; i++)
+		{
+			oValue = pRow[i];
+
+			if (oValue instanceof String)
+			{
+				lSize += 40 + 2L * ((String)oValue).length();
+			}
+			else if (oValue instanceof byte[])
+			{
+				lSize += 16 + ((byte[])oValue).length;
+			}
+			else if (oValue instanceof BigDecimal)
+			{
+				lSize += 64;
+			}
+			else if (oValue != null)
+			{
+				lSize += 32;
+			}
+		}
+
+		return lSize;
+	}
+
+	/**
+	 * Creates a new run with a temporary file.
+	 *
+	 * @return the run
+	 * @throws IOException if creating the file fails
+	 */
+	private Run createRun() throws IOException
+	{
+		File fiRun = File.createTempFile("sort", ".run", fiTempDirectory);
+
+		liTempFiles.add(fiRun);
+
+		return new Run(fiRun);
+	}
+
+	/**
+	 * Opens the given runs for merging.
+	 *
+	 * @param pRuns the runs
+	 * @return the merge queue with the first record of every run
+	 * @throws IOException if opening a run fails
+	 */
+	private PriorityQueue<RunReader> open(List<Run> pRuns) throws IOException
+	{
+		PriorityQueue<RunReader> pqRuns = new PriorityQueue<RunReader>(Math.max(1, pRuns.size()), cmpMerge);
+
+		RunReader reader;
+
+		try
+		{
+			for (int i = 0, anz = pRuns.size(); i < anz; i++)
+			{
+				reader = new RunReader(pRuns.get(i), i);
+
+				if (reader.next())
+				{
+					pqRuns.add(reader);
+				}
+			}
+		}
+		catch (IOException ioe)
+		{
+			for (RunReader rdr : pqRuns)
+			{
+				rdr.close();
+			}
+
+			throw ioe;
+		}
+
+		return pqRuns;
+	}
+
+	/**
+	 * Merges groups of {@link #MAX_FAN_IN} consecutive runs to one run. The order of the runs
+	 * is kept, so equal records keep their order.
+	 *
+	 * @throws IOException if merging fails
+	 */
+	private void mergePass() throws IOException
+	{
+		List<Run> liMerged = new ArrayList<Run>(liRuns.size() / MAX_FAN_IN + 1);
+
+		List<Run> liGroup;
+
+		for (int i = 0, anz = liRuns.size(); i < anz; i += MAX_FAN_IN)
+		{
+			liGroup = liRuns.subList(i, Math.min(anz, i + MAX_FAN_IN));
+
+			if (liGroup.size() == 1)
+			{
+				liMerged.add(liGroup.get(0));
+			}
+			else
+			{
+				liMerged.add(merge(liGroup));
+			}
+		}
+
+		liRuns = liMerged;
+	}
+
+	/**
+	 * Merges runs to a new run and deletes the merged runs.
+	 *
+	 * @param pRuns the runs
+	 * @return the new run
+	 * @throws IOException if merging fails
+	 */
+	private Run merge(List<Run> pRuns) throws IOException
+	{
+		Run run = createRun();
+
+		PriorityQueue<RunReader> pqRuns = open(pRuns);
+
+		DataOutputStream dos = null;
+
+		try
+		{
+			dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run.file), BUFFER_SIZE));
+
+			RunReader reader;
+
+			while ((reader = pqRuns.poll()) != null)
+			{
+				RowFormat.write(dos, reader.row);
+
+				run.records++;
+
+				if (reader.next())
+				{
+					pqRuns.add(reader);
+				}
+			}
+		}
+		finally
+		{
+			for (RunReader reader : pqRuns)
+			{
+				reader.close();
+			}
+
+			if (dos != null)
+			{
+				dos.close();
+			}
+		}
+
+		for (Run runMerged : pRuns)
+		{
+			runMerged.file.delete();
+
+			liTempFiles.remove(runMerged.file);
+		}
+
+		return run;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Inner classes
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * The <code>RowComparator</code> compares records with a {@link SortDefinition}.
+	 *
+	 * @author Ren Jahn
+	 */
+	static final class RowComparator implements Comparator<Object[]>
+	{
+		/** the column indexes of the sort columns. */
+		private int[] iColumnIndex;
+
+		/** the sort order of the sort columns. */
+		private boolean[] bAscending;
+
+		/**
+		 * Creates a new <code>RowComparator</code>.
+		 *
+		 * @param pMetaData the storage meta data
+		 * @param pSort the sort definition
+		 * @throws DataSourceException if a sort column does not exist
+		 */
+		RowComparator(MetaData pMetaData, SortDefinition pSort) throws DataSourceException
+		{
+			String[] sColumns = pSort.getColumns();
+			boolean[] bSortAscending = pSort.isAscending();
+
+			iColumnIndex = new int[sColumns.length];
+			bAscending = new boolean[sColumns.length];
+
+			for (int i = 0; i < sColumns.length; i++)
+			{
+				iColumnIndex[i] = pMetaData.getColumnMetaDataIndex(sColumns[i]);
+
+				if (iColumnIndex[i] < 0)
+				{
+					throw new DataSourceException("Sort column '" + sColumns[i] + "' doesn't exist!");
+				}
+
+				bAscending[i] = bSortAscending == null || bSortAscending.length <= i || bSortAscending[i];
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public int compare(Object[] pFirst, Object[] pSecond)
+		{
+			Object oFirst;
+			Object oSecond;
+
+			int iResult;
+
+			for (int i = 0; i < iColumnIndex.length; i++)
+			{
+				oFirst = pFirst[iColumnIndex[i]];
+				oSecond = pSecond[iColumnIndex[i]];
+
+				if (oFirst == oSecond)
+				{
+					iResult = 0;
+				}
+				else if (oFirst == null)
+				{
+					iResult = -1;
+				}
+				else if (oSecond == null)
+				{
+					iResult = 1;
+				}
+				else
+				{
+					iResult = ColumnStatistics.compare(oFirst, oSecond);
+				}
+
+				if (iResult != 0)
+				{
+					return bAscending[i] ? iResult : -iResult;
+				}
+			}
+
+			return 0;
+		}
+
+	}	// RowComparator
+
+	/**
+	 * The <code>LobStream</code> reads a LOB value from the LOB file of a sort. The file is opened with
+	 * the first read.
+	 *
+	 * @author Ren Jahn
+	 */
+	static final class LobStream extends InputStream
+	{
+		/** the LOB file. */
+		final File file;
+
+		/** the offset of the value. */
+		final long offset;
+
+		/** the length of the value. */
+		final long length;
+
+		/** the file input. */
+		private InputStream input;
+
+		/** the number of bytes which weren't read. */
+		private long lRemaining;
+
+		/**
+		 * Creates a new <code>LobStream</code>.
+		 *
+		 * @param pFile the LOB file
+		 * @param pOffset the offset of the value
+		 * @param pLength the length of the value
+		 */
+		LobStream(File pFile, long pOffset, long pLength)
+		{
+			file = pFile;
+			offset = pOffset;
+			length = pLength;
+
+			lRemaining = pLength;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int read() throws IOException
+		{
+			byte[] byData = new byte[1];
+
+			if (read(byData, 0, 1) < 0)
+			{
+				return -1;
+			}
+
+			return byData[0] & 0xFF;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int read(byte[] pBuffer, int pOffset, int pLength) throws IOException
+		{
+			if (lRemaining == 0)
+			{
+				close();
+
+				return -1;
+			}
+
+			if (input == null)
+			{
+				FileInputStream fis = new FileInputStream(file);
+				fis.getChannel().position(offset);
+
+				input = new BufferedInputStream(fis, BUFFER_SIZE);
+			}
+
+			int iLen = input.read(pBuffer, pOffset, (int)Math.min(pLength, lRemaining));
+
+			if (iLen < 0)
+			{
+				throw new EOFException("LOB file " + file + " is incomplete!");
+			}
+
+			lRemaining -= iLen;
+
+			return iLen;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			lRemaining = 0;
+
+			if (input != null)
+			{
+				input.close();
+				input = null;
+			}
+		}
+
+	}	// LobStream
+
+	/**
+	 * The <code>CountingOutputStream</code> counts the written bytes, without closing the stream.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class CountingOutputStream extends OutputStream
+	{
+		/** the output stream. */
+		private OutputStream out;
+
+		/** the number of written bytes. */
+		private long lLength;
+
+		/**
+		 * Creates a new <code>CountingOutputStream</code>.
+		 *
+		 * @param pOut the output stream
+		 */
+		private CountingOutputStream(OutputStream pOut)
+		{
+			out = pOut;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void write(int pByte) throws IOException
+		{
+			out.write(pByte);
+
+			lLength++;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void write(byte[] pData, int pOffset, int pLength) throws IOException
+		{
+			out.write(pData, pOffset, pLength);
+
+			lLength += pLength;
+		}
+
+	}	// CountingOutputStream
+
+	/**
+	 * The <code>Run</code> is a sorted run in a temporary file.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class Run
+	{
+		/** the run file. */
+		private File file;
+
+		/** the number of records. */
+		private long records;
+
+		/**
+		 * Creates a new <code>Run</code>.
+		 *
+		 * @param pFile the run file
+		 */
+		private Run(File pFile)
+		{
+			file = pFile;
+		}
+
+	}	// Run
+
+	/**
+	 * The <code>RunReader</code> reads the records of a run file.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class RunReader
+	{
+		/** the run. */
+		private Run run;
+
+		/** the run input. */
+		private DataInputStream input;
+
+		/** the current record. */
+		private Object[] row;
+
+		/** the run index. */
+		private int index;
+
+		/** the number of records which weren't read. */
+		private long lRemaining;
+
+		/**
+		 * Creates a new <code>RunReader</code>.
+		 *
+		 * @param pRun the run
+		 * @param pIndex the run index
+		 * @throws IOException if opening the file fails
+		 */
+		private RunReader(Run pRun, int pIndex) throws IOException
+		{
+			input = new DataInputStream(new BufferedInputStream(new FileInputStream(pRun.file), BUFFER_SIZE));
+			run = pRun;
+			index = pIndex;
+			lRemaining = pRun.records;
+		}
+
+		/**
+		 * Reads the next record. The run is exhausted after the number of written records, so
+		 * an incomplete run file is an error.
+		 *
+		 * @return <code>true</code> if a record was read, <code>false</code> if the run is exhausted
+		 * @throws IOException if reading fails or the run file is incomplete
+		 */
+		private boolean next() throws IOException
+		{
+			if (lRemaining == 0)
+			{
+				close();
+
+				return false;
+			}
+
+			try
+			{
+				row = RowFormat.read(input);
+			}
+			catch (EOFException eof)
+			{
+				close();
+
+				throw new IOException("Run file " + run.file + " is incomplete!", eof);
+			}
+
+			lRemaining--;
+
+			return true;
+		}
+
+		/**
+		 * Closes the run file.
+		 */
+		private void close()
+		{
+			row = null;
+
+			try
+			{
+				input.close();
+			}
+			catch (IOException ioe)
+			{
+				//ignore
+			}
+		}
+
+	}	// RunReader
+
+}	// ExternalSort
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.util.List;
+
+import jvx.rad.model.SortDefinition;
+import jvx.rad.model.condition.ICondition;
+import jvx.rad.persist.DataSourceException;
+
+import com.sibvisions.rad.persist.AbstractStorage;
+
+/**
+ * The <code>FetchCursor</code> is an {@link IRowCursor} for storages without cursor support. The records
+ * are fetched page by page with {@link AbstractStorage#fetch(ICondition, SortDefinition, int, int)}.
+ *
+ * @author Ren Jahn
+ */
+final class FetchCursor implements IRowCursor
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the storage. */
+	private AbstractStorage storage;
+
+	/** the filter condition. */
+	private ICondition condFilter;
+
+	/** the sort definition. */
+	private SortDefinition sort;
+
+	/** the current page. */
+	private List<Object[]> liPage;
+
+	/** the current record. */
+	private Object[] oRow;
+
+	/** the number of records per page. */
+	private int iPageSize;
+
+	/** the index of the first record of the next page. */
+	private int iStart;
+
+	/** the index of the current record in the current page. */
+	private int iPagePos;
+
+	/** whether all records were fetched. */
+	private boolean bAllFetched;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new <code>FetchCursor</code>.
+	 *
+	 * @param pStorage the storage
+	 * @param pFilter the filter condition
+	 * @param pSort the sort definition
+	 * @param pPageSize the number of records per page
+	 */
+	FetchCursor(AbstractStorage pStorage, ICondition pFilter, SortDefinition pSort, int pPageSize)
+	{
+		storage = pStorage;
+		condFilter = pFilter;
+		sort = pSort;
+		iPageSize = pPageSize;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Interface implementation
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean next() throws DataSourceException
+	{
+		oRow = null;
+
+		while (oRow == null)
+		{
+			if (liPage == null || iPagePos >= liPage.size())
+			{
+				if (bAllFetched)
+				{
+					return false;
+				}
+
+				liPage = storage.fetch(condFilter, sort, iStart, iPageSize);
+
+				iStart += liPage.size();
+				iPagePos = 0;
+
+				//the storage adds null after the last record, an empty page means the same
+				bAllFetched = liPage.isEmpty();
+			}
+			else
+			{
+				oRow = liPage.get(iPagePos++);
+
+				if (oRow == null)
+				{
+					bAllFetched = true;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Object[] getRow()
+	{
+		return oRow;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void close()
+	{
+		liPage = null;
+		oRow = null;
+	}
+
+}	// FetchCursor
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+
+import com.sibvisions.util.type.FileUtil;
+
+/**
+ * The <code>HttpMultipartUpload</code> uploads an object with the multipart upload REST API of S3 compatible
+ * object storages. The object is addressed with its URL, e.g. <code>https://bucket.host/key</code>. Requests
+ * are sent without authentication, so the storage has to accept them, e.g. through a gateway or bucket policy.
+ * Subclasses can add authentication headers with {@link #configure(HttpURLConnection, byte[], int)}.
+ *
+ * @author Ren Jahn
+ */
+public class HttpMultipartUpload implements IMultipartUpload
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the object URL. */
+	private String sUrl;
+
+	/** the upload id. */
+	private String sUploadId;
+
+	/** the connect timeout. */
+	private int iConnectTimeout = 30000;
+
+	/** the read timeout. */
+	private int iReadTimeout = 300000;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new <code>HttpMultipartUpload</code>.
+	 *
+	 * @param pUrl the object URL, without query
+	 */
+	public HttpMultipartUpload(String pUrl)
+	{
+		sUrl = pUrl;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Interface implementation
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void begin() throws IOException
+	{
+		String sResponse = send("POST", "?uploads", null, 0);
+
+		sUploadId = getElement(sResponse, "UploadId");
+
+		if (sUploadId == null)
+		{
+			throw new IOException("Upload id is missing: " + sResponse);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public String uploadPart(int pPartNumber, byte[] pData, int pLength) throws IOException
+	{
+		HttpURLConnection con = open("PUT", "?partNumber=" + pPartNumber + "&uploadId=" + encode(sUploadId), pData, pLength);
+
+		try
+		{
+			read(con);
+
+			String sTag = con.getHeaderField("ETag");
+
+			if (sTag == null)
+			{
+				throw new IOException("ETag of part " + pPartNumber + " is missing!");
+			}
+
+			return sTag;
+		}
+		finally
+		{
+			con.disconnect();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void complete(String[] pTags) throws IOException
+	{
+		StringBuilder sbXml = new StringBuilder("<CompleteMultipartUpload>");
+
+		for (int i = 0; i < pTags.length; i++)
+		{
+			sbXml.append("<Part><PartNumber>");
+			sbXml.append(i + 1);
+			sbXml.append("</PartNumber><ETag>");
+			sbXml.append(pTags[i].replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;"));
+			sbXml.append("</ETag></Part>");
+		}
+
+		sbXml.append("</CompleteMultipartUpload>");
+
+		byte[] byXml = sbXml.toString().getBytes("UTF-8");
+
+		String sResponse = send("POST", "?uploadId=" + encode(sUploadId), byXml, byXml.length);
+
+		//errors are possible with status 200
+		if (sResponse.indexOf("<Error>") >= 0)
+		{
+			throw new IOException("Completing upload failed: " + sResponse);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void abort() throws IOException
+	{
+		if (sUploadId != null)
+		{
+			send("DELETE", "?uploadId=" + encode(sUploadId), null, 0);
+		}
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Configures a connection before the request is sent, e.g. to add authentication headers.
+	 *
+	 * @param pConnection the connection
+	 * @param pData the request data or <code>null</code>
+	 * @param pLength the number of bytes of the request data
+	 * @throws IOException if configuration fails
+	 */
+	protected void configure(HttpURLConnection pConnection, byte[] pData, int pLength) throws IOException
+	{
+	}
+
+	/**
+	 * Gets the object URL.
+	 *
+	 * @return the URL
+	 */
+	public String getUrl()
+	{
+		return sUrl;
+	}
+
+	/**
+	 * Gets the upload id.
+	 *
+	 * @return the upload id or <code>null</code> if the upload wasn't started
+	 */
+	public String getUploadId()
+	{
+		return sUploadId;
+	}
+
+	/**
+	 * Sets the connect timeout.
+	 *
+	 * @param pTimeout the timeout in milliseconds
+	 */
+	public void setConnectTimeout(int pTimeout)
+	{
+		iConnectTimeout = pTimeout;
+	}
+
+	/**
+	 * Gets the connect timeout.
+	 *
+	 * @return the timeout in milliseconds
+	 */
+	public int getConnectTimeout()
+	{
+		return iConnectTimeout;
+	}
+
+	/**
+	 * Sets the read timeout.
+	 *
+	 * @param pTimeout the timeout in milliseconds
+	 */
+	public void setReadTimeout(int pTimeout)
+	{
+		iReadTimeout = pTimeout;
+	}
+
+	/**
+	 * Gets the read timeout.
+	 *
+	 * @return the timeout in milliseconds
+	 */
+	public int getReadTimeout()
+	{
+		return iReadTimeout;
+	}
+
+	/**
+	 * Sends a request and reads the response.
+	 *
+	 * @param pMethod the request method
+	 * @param pQuery the query
+	 * @param pData the request data or <code>null</code>
+	 * @param pLength the number of bytes of the request data
+	 * @return the response
+	 * @throws IOException if the request fails
+	 */
+	private String send(String pMethod, String pQuery, byte[] pData, int pLength) throws IOException
+	{
+		HttpURLConnection con = open(pMethod, pQuery, pData, pLength);
+
+		try
+		{
+			return read(con);
+		}
+		finally
+		{
+			con.disconnect();
+		}
+	}
+
+	/**
+	 * Opens a connection and sends the request data.
+	 *
+	 * @param pMethod the request method
+	 * @param pQuery the query
+	 * @param pData the request data or <code>null</code>
+	 * @param pLength the number of bytes of the request data
+	 * @return the connection
+	 * @throws IOException if sending fails
+	 */
+	private HttpURLConnection open(String pMethod, String pQuery, byte[] pData, int pLength) throws IOException
+	{
+		HttpURLConnection con = (HttpURLConnection)new URL(sUrl + pQuery).openConnection();
+		con.setRequestMethod(pMethod);
+		con.setConnectTimeout(iConnectTimeout);
+		con.setReadTimeout(iReadTimeout);
+		con.setUseCaches(false);
+
+		configure(con, pData, pLength);
+
+		if (pData != null)
+		{
+			con.setDoOutput(true);
+			con.setFixedLengthStreamingMode(pLength);
+
+			OutputStream out = con.getOutputStream();
+
+			try
+			{
+				out.write(pData, 0, pLength);
+			}
+			finally
+			{
+				out.close();
+			}
+		}
+
+		return con;
+	}
+
+	/**
+	 * Reads the response of a request.
+	 *
+	 * @param pConnection the connection
+	 * @return the response
+	 * @throws IOException if the request failed
+	 */
+	private static String read(HttpURLConnection pConnection) throws IOException
+	{
+		int iCode = pConnection.getResponseCode();
+
+		InputStream in = iCode >= 400 ? pConnection.getErrorStream() : pConnection.getInputStream();
+
+		String sResponse;
+
+		if (in != null)
+		{
+			sResponse = new String(FileUtil.getContent(in, true), "UTF-8");
+		}
+		else
+		{
+			sResponse = "";
+		}
+
+		if (iCode < 200 || iCode >= 300)
+		{
+			throw new IOException(pConnection.getRequestMethod() + " " + pConnection.getURL() + " failed with status " + iCode + ": " + sResponse);
+		}
+
+		return sResponse;
+	}
+
+	/**
+	 * Gets the text of an XML element.
+	 *
+	 * @param pXml the XML
+	 * @param pElement the element name
+	 * @return the text or <code>null</code> if the element wasn't found
+	 */
+	private static String getElement(String pXml, String pElement)
+	{
+		int iStart = pXml.indexOf("<" + pElement + ">");
+
+		if (iStart < 0)
+		{
+			return null;
+		}
+
+		iStart += pElement.length() + 2;
+
+		int iEnd = pXml.indexOf("</" + pElement + ">", iStart);
+
+		if (iEnd < 0)
+		{
+			return null;
+		}
+
+		return pXml.substring(iStart, iEnd).trim();
+	}
+
+	/**
+	 * Encodes a query parameter.
+	 *
+	 * @param pValue the value
+	 * @return the encoded value
+	 * @throws IOException if encoding fails
+	 */
+	private static String encode(String pValue) throws IOException
+	{
+		return URLEncoder.encode(pValue, "UTF-8");
+	}
+
+}	// HttpMultipartUpload
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - DBCursorStorage
+ */
+package com.sibvisions.util.zip.aes;
+
+import jvx.rad.model.SortDefinition;
+import jvx.rad.model.condition.ICondition;
+import jvx.rad.persist.DataSourceException;
+
+/**
+ * The <code>ICursorStorage</code> is a storage which reads all records of a query with one
+ * {@link IRowCursor}. The {@link StorageExport} uses the cursor instead of fetching pages of
+ * records, if an {@link com.sibvisions.rad.persist.AbstractStorage} implements this interface.
+ * <p>
+ * Storages must opt in. The storages of jvx, e.g. <code>DBStorage</code>, don't implement this
+ * interface, so they are read page by page. {@link DBCursorStorage} is a <code>DBStorage</code> which
+ * reads the records with one result set.
+ *
+ * @author Ren Jahn
+ */
+public interface ICursorStorage
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Method definitions
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Opens a cursor for all records which match the filter.
+	 *
+	 * @param pFilter the filter condition or <code>null</code>
+	 * @param pSort the sort definition or <code>null</code>
+	 * @return the cursor or <code>null</code> if no cursor is available for the query, then the records
+	 *         will be fetched page by page
+	 * @throws DataSourceException if opening the cursor fails
+	 */
+	public IRowCursor openCursor(ICondition pFilter, SortDefinition pSort) throws DataSourceException;
+
+}	// ICursorStorage
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.IOException;
+
+/**
+ * The <code>IMultipartUpload</code> uploads one object in parts, like the multipart upload of S3 compatible
+ * object storages. The parts are uploaded in parallel and in any order, so all methods except
+ * {@link #uploadPart(int, byte[], int)} are called from one thread, but parts are uploaded from
+ * multiple threads.
+ *
+ * @author Ren Jahn
+ * @see MultipartOutputStream
+ */
+public interface IMultipartUpload
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Method definitions
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Starts the upload, before the first part will be uploaded.
+	 *
+	 * @throws IOException if starting fails
+	 */
+	public void begin() throws IOException;
+
+	/**
+	 * Uploads a part. A failed part may be uploaded again with the same part number.
+	 *
+	 * @param pPartNumber the part number, starting with <code>1</code>
+	 * @param pData the data buffer
+	 * @param pLength the number of bytes in the buffer
+	 * @return the tag of the part, e.g. the ETag
+	 * @throws IOException if uploading fails
+	 */
+	public String uploadPart(int pPartNumber, byte[] pData, int pLength) throws IOException;
+
+	/**
+	 * Completes the upload after all parts were uploaded.
+	 *
+	 * @param pTags the tags of all parts, in part number order
+	 * @throws IOException if completing fails
+	 */
+	public void complete(String[] pTags) throws IOException;
+
+	/**
+	 * Aborts the upload and removes all uploaded parts.
+	 *
+	 * @throws IOException if aborting fails
+	 */
+	public void abort() throws IOException;
+
+}	// IMultipartUpload
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ */
+package com.sibvisions.util.zip.aes;
+
+import jvx.rad.persist.DataSourceException;
+
+import com.sibvisions.util.ICloseable;
+
+/**
+ * The <code>IRowCursor</code> reads the records of one query, e.g. from an open result set. The
+ * cursor may reuse the record array for every record, so the array is only valid until the next
+ * call of {@link #next()}. The values of a record must not be changed after they were read.
+ *
+ * @author Ren Jahn
+ * @see ICursorStorage
+ */
+public interface IRowCursor extends ICloseable
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Method definitions
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Moves the cursor to the next record.
+	 *
+	 * @return <code>true</code> if a record was read, <code>false</code> if all records were read
+	 * @throws DataSourceException if reading fails
+	 */
+	public boolean next() throws DataSourceException;
+
+	/**
+	 * Gets the current record.
+	 *
+	 * @return the record, with the same column order as the meta data of the storage
+	 */
+	public Object[] getRow();
+
+	/**
+	 * Closes the cursor and releases all resources, e.g. the result set.
+	 *
+	 * @throws DataSourceException if closing fails
+	 */
+	public void close() throws DataSourceException;
+
+}	// IRowCursor
@@ -0,0 +1,567 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - abort waits for parts in flight
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sibvisions.util.ArrayUtil;
+import com.sibvisions.util.log.ILogger;
+import com.sibvisions.util.log.LoggerFactory;
+
+/**
+ * The <code>MultipartOutputStream</code> uploads the written data in parts with an {@link IMultipartUpload},
+ * while data is still written. Every full part is uploaded in the background and the number of parts in
+ * memory is limited: if all parts are in flight, writing blocks until a part was uploaded. A failed part is
+ * uploaded again, until the maximum number of retries is reached. Closing the stream uploads the last part
+ * and completes the upload, {@link #abort()} cancels the upload.
+ * <p>
+ * S3 compatible object storages need parts with at least 5 MB, except the last part.
+ *
+ * @author Ren Jahn
+ */
+public class MultipartOutputStream extends OutputStream
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the default part size. */
+	public static final int DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+
+	/** the default number of parts in flight. */
+	public static final int DEFAULT_PARTS_IN_FLIGHT = 4;
+
+	/** the maximum time to wait for parts in flight, before the upload will be aborted. */
+	private static final long ABORT_TIMEOUT = 60000;
+
+	/** the logger. */
+	private static ILogger logger = LoggerFactory.getInstance(MultipartOutputStream.class);
+
+	/** the thread counter. */
+	private static AtomicInteger aiThreadCount = new AtomicInteger();
+
+	/** the upload. */
+	private IMultipartUpload upload;
+
+	/** the upload threads. */
+	private ExecutorService executor;
+
+	/** the unused part buffers. */
+	private BlockingQueue<byte[]> bqBuffers;
+
+	/** the pending and finished parts. */
+	private List<Future<String>> liParts = new ArrayUtil<Future<String>>();
+
+	/** the first upload error. */
+	private volatile Throwable thError;
+
+	/** the current part buffer. */
+	private byte[] byPart;
+
+	/** the part size. */
+	private int iPartSize;
+
+	/** the maximum number of parts in flight. */
+	private int iPartsInFlight;
+
+	/** the number of allocated part buffers. */
+	private int iBufferCount;
+
+	/** the number of bytes in the current part buffer. */
+	private int iPartLength;
+
+	/** the maximum number of retries per part. */
+	private int iMaxRetries = 3;
+
+	/** the delay before the first retry, in milliseconds. */
+	private long lRetryDelay = 500;
+
+	/** the number of written bytes. */
+	private long lLength;
+
+	/** whether the upload was started. */
+	private boolean bStarted;
+
+	/** whether the stream is closed or aborted. */
+	private volatile boolean bClosed;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new <code>MultipartOutputStream</code> with {@link #DEFAULT_PART_SIZE} and
+	 * {@link #DEFAULT_PARTS_IN_FLIGHT}.
+	 *
+	 * @param pUpload the upload
+	 */
+	public MultipartOutputStream(IMultipartUpload pUpload)
+	{
+		this(pUpload, DEFAULT_PART_SIZE, DEFAULT_PARTS_IN_FLIGHT);
+	}
+
+	/**
+	 * Creates a new <code>MultipartOutputStream</code>.
+	 *
+	 * @param pUpload the upload
+	 * @param pPartSize the part size in bytes
+	 * @param pPartsInFlight the maximum number of parts which are uploaded at the same time
+	 */
+	public MultipartOutputStream(IMultipartUpload pUpload, int pPartSize, int pPartsInFlight)
+	{
+		if (pPartSize <= 0)
+		{
+			throw new IllegalArgumentException("Invalid part size: " + pPartSize);
+		}
+
+		if (pPartsInFlight <= 0)
+		{
+			throw new IllegalArgumentException("Invalid number of parts in flight: " + pPartsInFlight);
+		}
+
+		upload = pUpload;
+		iPartSize = pPartSize;
+		iPartsInFlight = pPartsInFlight;
+
+		//one buffer is filled while the others are uploaded
+		bqBuffers = new ArrayBlockingQueue<byte[]>(pPartsInFlight + 1);
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(int pByte) throws IOException
+	{
+		write(new byte[] {(byte)pByte}, 0, 1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(byte[] pData, int pOffset, int pLength) throws IOException
+	{
+		checkState();
+
+		int iOffset = pOffset;
+		int iLength = pLength;
+
+		int iCopy;
+
+		while (iLength > 0)
+		{
+			if (byPart == null)
+			{
+				byPart = nextBuffer();
+			}
+
+			iCopy = Math.min(iLength, iPartSize - iPartLength);
+
+			System.arraycopy(pData, iOffset, byPart, iPartLength, iCopy);
+
+			iPartLength += iCopy;
+			iOffset += iCopy;
+			iLength -= iCopy;
+
+			if (iPartLength == iPartSize)
+			{
+				submitPart();
+			}
+		}
+
+		lLength += pLength;
+	}
+
+	/**
+	 * Uploads the last part, waits until all parts are uploaded and completes the upload. If the upload
+	 * fails, it will be aborted.
+	 *
+	 * @throws IOException if the upload fails
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (bClosed)
+		{
+			return;
+		}
+
+		try
+		{
+			checkState();
+
+			//the object has at least one part
+			if (iPartLength > 0 || liParts.isEmpty())
+			{
+				if (byPart == null)
+				{
+					byPart = nextBuffer();
+				}
+
+				submitPart();
+			}
+
+			String[] sTags = new String[liParts.size()];
+
+			for (int i = 0; i < sTags.length; i++)
+			{
+				sTags[i] = waitFor(liParts.get(i));
+			}
+
+			upload.complete(sTags);
+
+			bClosed = true;
+
+			logger.debug("Upload completed: ", Long.valueOf(lLength), " bytes, ", Integer.valueOf(sTags.length), " parts");
+		}
+		catch (IOException ioe)
+		{
+			try
+			{
+				abort();
+			}
+			catch (IOException ioeAbort)
+			{
+				//the upload error is more important
+				logger.debug(ioeAbort);
+			}
+
+			throw ioe;
+		}
+		finally
+		{
+			shutdown();
+		}
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Cancels all pending parts and aborts the upload. Parts in flight are interrupted and the upload is
+	 * aborted after they finished, at most after one minute, so that no part is stored after the abort.
+	 * The stream is closed afterwards.
+	 *
+	 * @throws IOException if aborting fails
+	 */
+	public void abort() throws IOException
+	{
+		if (bClosed)
+		{
+			return;
+		}
+
+		bClosed = true;
+
+		if (executor != null)
+		{
+			executor.shutdownNow();
+
+			try
+			{
+				if (!executor.awaitTermination(ABORT_TIMEOUT, TimeUnit.MILLISECONDS))
+				{
+					logger.info("Parts are still in flight, abort upload anyway");
+				}
+			}
+			catch (InterruptedException ie)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			shutdown();
+		}
+
+		if (bStarted)
+		{
+			upload.abort();
+		}
+	}
+
+	/**
+	 * Sets the maximum number of retries per part.
+	 *
+	 * @param pRetries the number of retries
+	 */
+	public void setMaxRetries(int pRetries)
+	{
+		iMaxRetries = pRetries;
+	}
+
+	/**
+	 * Gets the maximum number of retries per part.
+	 *
+	 * @return the number of retries
+	 */
+	public int getMaxRetries()
+	{
+		return iMaxRetries;
+	}
+
+	/**
+	 * Sets the delay before the first retry of a part. The delay doubles with every retry.
+	 *
+	 * @param pDelay the delay in milliseconds
+	 */
+	public void setRetryDelay(long pDelay)
+	{
+		lRetryDelay = pDelay;
+	}
+
+	/**
+	 * Gets the delay before the first retry of a part.
+	 *
+	 * @return the delay in milliseconds
+	 */
+	public long getRetryDelay()
+	{
+		return lRetryDelay;
+	}
+
+	/**
+	 * Gets the number of parts which were submitted for upload.
+	 *
+	 * @return the number of parts
+	 */
+	public int getPartCount()
+	{
+		return liParts.size();
+	}
+
+	/**
+	 * Gets the number of written bytes.
+	 *
+	 * @return the number of bytes
+	 */
+	public long getLength()
+	{
+		return lLength;
+	}
+
+	/**
+	 * Checks whether the stream is usable.
+	 *
+	 * @throws IOException if the stream is closed or a part failed
+	 */
+	private void checkState() throws IOException
+	{
+		if (bClosed)
+		{
+			throw new IOException("Stream is closed!");
+		}
+
+		if (thError != null)
+		{
+			throw new IOException("Upload failed!", thError);
+		}
+	}
+
+	/**
+	 * Gets an unused part buffer. A new buffer is allocated if less than the maximum number of buffers
+	 * exist, otherwise this method waits until an upload returns its buffer.
+	 *
+	 * @return the buffer
+	 * @throws IOException if waiting was interrupted or a part failed
+	 */
+	private byte[] nextBuffer() throws IOException
+	{
+		byte[] byBuffer = bqBuffers.poll();
+
+		if (byBuffer == null)
+		{
+			if (iBufferCount <= iPartsInFlight)
+			{
+				iBufferCount++;
+
+				return new byte[iPartSize];
+			}
+
+			try
+			{
+				byBuffer = bqBuffers.take();
+			}
+			catch (InterruptedException ie)
+			{
+				Thread.currentThread().interrupt();
+
+				throw new IOException("Upload interrupted!", ie);
+			}
+
+			checkState();
+		}
+
+		return byBuffer;
+	}
+
+	/**
+	 * Submits the current part buffer for upload.
+	 *
+	 * @throws IOException if starting the upload fails
+	 */
+	private void submitPart() throws IOException
+	{
+		if (!bStarted)
+		{
+			upload.begin();
+
+			bStarted = true;
+
+			executor = Executors.newFixedThreadPool(iPartsInFlight, new ThreadFactory()
+			{
+				public Thread newThread(Runnable pRunnable)
+				{
+					Thread th = new Thread(pRunnable, "MultipartUpload-" + aiThreadCount.incrementAndGet());
+					th.setDaemon(true);
+
+					return th;
+				}
+			});
+		}
+
+		final byte[] byData = byPart;
+		final int iLength = iPartLength;
+		final int iPartNumber = liParts.size() + 1;
+
+		byPart = null;
+		iPartLength = 0;
+
+		liParts.add(executor.submit(new Callable<String>()
+		{
+			public String call() throws Exception
+			{
+				try
+				{
+					return uploadPart(iPartNumber, byData, iLength);
+				}
+				catch (Exception ex)
+				{
+					if (thError == null)
+					{
+						thError = ex;
+					}
+
+					throw ex;
+				}
+				finally
+				{
+					bqBuffers.offer(byData);
+				}
+			}
+		}));
+	}
+
+	/**
+	 * Uploads a part and retries failed uploads.
+	 *
+	 * @param pPartNumber the part number
+	 * @param pData the data buffer
+	 * @param pLength the number of bytes in the buffer
+	 * @return the tag of the part
+	 * @throws IOException if all retries failed
+	 * @throws InterruptedException if the upload was aborted
+	 */
+	private String uploadPart(int pPartNumber, byte[] pData, int pLength) throws IOException, InterruptedException
+	{
+		long lDelay = lRetryDelay;
+
+		for (int iRetry = 0; ; iRetry++)
+		{
+			try
+			{
+				return upload.uploadPart(pPartNumber, pData, pLength);
+			}
+			catch (IOException ioe)
+			{
+				if (iRetry >= iMaxRetries || bClosed)
+				{
+					throw ioe;
+				}
+
+				logger.debug("Retry part ", Integer.valueOf(pPartNumber), ": ", ioe.getMessage());
+
+				Thread.sleep(lDelay);
+
+				lDelay *= 2;
+			}
+		}
+	}
+
+	/**
+	 * Waits for the upload of a part.
+	 *
+	 * @param pPart the part
+	 * @return the tag of the part
+	 * @throws IOException if the upload failed or waiting was interrupted
+	 */
+	private String waitFor(Future<String> pPart) throws IOException
+	{
+		try
+		{
+			return pPart.get();
+		}
+		catch (ExecutionException ee)
+		{
+			throw new IOException("Upload failed!", ee.getCause());
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+
+			throw new IOException("Upload interrupted!", ie);
+		}
+	}
+
+	/**
+	 * Stops the upload threads.
+	 */
+	private void shutdown()
+	{
+		if (executor != null)
+		{
+			executor.shutdown();
+			executor = null;
+		}
+
+		byPart = null;
+
+		bqBuffers.clear();
+	}
+
+}	// MultipartOutputStream
@@ -0,0 +1,1005 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - blocks
+ *                   - Zip64 local headers, cipher per thread
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import net.lingala.zip4j.model.ZipParameters;
+import net.lingala.zip4j.util.Zip4jConstants;
+
+/**
+ * The <code>ParallelAesOutputStream</code> writes zip archives with WinZip AE-2 encrypted entries and
+ * encrypts the compressed data of an entry with multiple threads. AES is used in CTR mode, so every
+ * segment of the compressed data can be encrypted independently with its own block counter. The segments
+ * are written and authenticated with HMAC-SHA1 in their original order, so the archive is the same as with
+ * sequential encryption, except the random salt.
+ * <p>
+ * The key derivation is the same as with zip4j. The size of an entry is unknown when the local header
+ * is written, so every local header contains a Zip64 extra field and the data descriptor always contains
+ * 8 byte sizes. Readers which follow the specification read entries above 4 GB correctly. The central
+ * directory contains Zip64 records only if needed.
+ *
+ * @author Ren Jahn
+ */
+final class ParallelAesOutputStream extends ArchiveOutputStream
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the segment size, a multiple of the AES block size. */
+	static final int SEGMENT_SIZE = 256 * 1024;
+
+	/** the AES block size. */
+	private static final int BLOCK_SIZE = 16;
+
+	/** the length of the authentication code. */
+	private static final int MAC_LENGTH = 10;
+
+	/** the length of the password verifier. */
+	private static final int VERIFIER_LENGTH = 2;
+
+	/** the number of key derivation iterations. */
+	private static final int ITERATIONS = 1000;
+
+	/** the compression method of AES encrypted entries. */
+	private static final int METHOD_AES = 99;
+
+	/** the zip version for AES encryption. */
+	private static final int VERSION_AES = 51;
+
+	/** the general purpose flags: encrypted, data descriptor, UTF-8 names. */
+	private static final int FLAGS = 0x0001 | 0x0008 | 0x0800;
+
+	/** the maximum value of 32 bit size and offset fields. */
+	private static final long ZIP64_LIMIT = 0xFFFFFFFFL;
+
+	/** the maximum number of entries without Zip64 records. */
+	private static final int ZIP64_ENTRY_LIMIT = 0xFFFF;
+
+	/** the random generator for salts. */
+	private static SecureRandom random = new SecureRandom();
+
+	/** the cipher and keystream buffer of every encryption thread. */
+	private static ThreadLocal<Keystream> tlKeystream = new ThreadLocal<Keystream>();
+
+	/** the output stream. */
+	private OutputStream out;
+
+	/** the encryption threads. */
+	private ExecutorService executor;
+
+	/** the written entries. */
+	private List<Entry> liEntries = new ArrayList<Entry>();
+
+	/** the segments in encryption, in write order. */
+	private ArrayDeque<Segment> dqPending = new ArrayDeque<Segment>();
+
+	/** the unused segment buffers. */
+	private ArrayDeque<byte[]> dqBuffers = new ArrayDeque<byte[]>();
+
+	/** the buffer for headers. */
+	private ByteArrayOutputStream baosHeader = new ByteArrayOutputStream(256);
+
+	/** the current entry. */
+	private Entry entry;
+
+	/** the compressor. */
+	private Deflater deflater;
+
+	/** the compressed data buffer. */
+	private byte[] byDeflated;
+
+	/** the encryption key of the current entry. */
+	private SecretKeySpec key;
+
+	/** the authentication of the current entry. */
+	private Mac mac;
+
+	/** the current segment buffer. */
+	private byte[] bySegment;
+
+	/** the number of bytes in the current segment. */
+	private int iSegmentLength;
+
+	/** the maximum number of segments in encryption. */
+	private int iMaxPending;
+
+	/** the block counter of the current segment. */
+	private long lCounter;
+
+	/** the number of written bytes. */
+	private long lOffset;
+
+	/** whether the central directory was written. */
+	private boolean bFinished;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new <code>ParallelAesOutputStream</code>.
+	 *
+	 * @param pStream the output stream
+	 * @param pExecutor the encryption threads
+	 * @param pMaxPending the maximum number of segments in encryption
+	 */
+	ParallelAesOutputStream(OutputStream pStream, ExecutorService pExecutor, int pMaxPending)
+	{
+		out = pStream;
+		executor = pExecutor;
+		iMaxPending = Math.max(1, pMaxPending);
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Abstract methods implementation
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void putNextEntry(String pName, ZipParameters pParameters) throws IOException
+	{
+		if (bFinished)
+		{
+			throw new IOException("Archive is finished!");
+		}
+
+		closeEntry();
+
+		if (!pParameters.isEncryptFiles() || pParameters.getEncryptionMethod() != Zip4jConstants.ENC_METHOD_AES)
+		{
+			throw new IOException("Entry " + pName + " is not AES encrypted!");
+		}
+
+		char[] chPassword = pParameters.getPassword();
+
+		if (chPassword == null || chPassword.length == 0)
+		{
+			throw new IOException("Password of entry " + pName + " is empty!");
+		}
+
+		Entry entNew = new Entry();
+		entNew.byName = pName.getBytes("UTF-8");
+		entNew.iStrength = pParameters.getAesKeyStrength();
+		entNew.lTime = toDosTime(System.currentTimeMillis());
+		entNew.lOffset = lOffset;
+
+		int iKeyLength;
+
+		switch (entNew.iStrength)
+		{
+			case Zip4jConstants.AES_STRENGTH_128:
+				iKeyLength = 16;
+				break;
+			case Zip4jConstants.AES_STRENGTH_192:
+				iKeyLength = 24;
+				break;
+			case Zip4jConstants.AES_STRENGTH_256:
+				iKeyLength = 32;
+				break;
+			default:
+				throw new IOException("Invalid AES key strength: " + entNew.iStrength);
+		}
+
+		if (pParameters.getCompressionMethod() == Zip4jConstants.COMP_STORE)
+		{
+			entNew.iMethod = Zip4jConstants.COMP_STORE;
+		}
+		else
+		{
+			entNew.iMethod = Zip4jConstants.COMP_DEFLATE;
+
+			if (deflater == null)
+			{
+				deflater = new Deflater(pParameters.getCompressionLevel(), true);
+				byDeflated = new byte[64 * 1024];
+			}
+			else
+			{
+				deflater.reset();
+				deflater.setLevel(pParameters.getCompressionLevel());
+			}
+		}
+
+		byte[] bySalt = new byte[iKeyLength / 2];
+
+		random.nextBytes(bySalt);
+
+		byte[] byDerived;
+
+		try
+		{
+			byDerived = deriveKey(chPassword, bySalt, iKeyLength * 2 + VERIFIER_LENGTH);
+
+			key = new SecretKeySpec(byDerived, 0, iKeyLength, "AES");
+
+			mac = Mac.getInstance("HmacSHA1");
+			mac.init(new SecretKeySpec(byDerived, iKeyLength, iKeyLength, "HmacSHA1"));
+		}
+		catch (GeneralSecurityException gse)
+		{
+			throw new IOException("Can't initialize encryption of entry " + pName + "!", gse);
+		}
+
+		//local file header, sizes are written to the data descriptor
+		writeInt(0x04034b50);
+		writeShort(VERSION_AES);
+		writeShort(FLAGS);
+		writeShort(METHOD_AES);
+		writeInt(entNew.lTime);
+		writeInt(0);
+		writeInt(ZIP64_LIMIT);
+		writeInt(ZIP64_LIMIT);
+		writeShort(entNew.byName.length);
+		writeShort(20 + 11);
+		writeHeader(entNew.byName);
+
+		//Zip64 placeholder, because the size is unknown (APPNOTE 4.3.9)
+		writeShort(0x0001);
+		writeShort(16);
+		writeLong(0);
+		writeLong(0);
+
+		writeAesExtraField(entNew);
+		flushHeader();
+
+		entNew.lDataOffset = lOffset;
+
+		writeHeader(bySalt);
+		baosHeader.write(byDerived, iKeyLength * 2, VERIFIER_LENGTH);
+		flushHeader();
+
+		lCounter = 1;
+
+		entry = entNew;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void closeEntry() throws IOException
+	{
+		if (entry == null)
+		{
+			return;
+		}
+
+		if (entry.iMethod == Zip4jConstants.COMP_DEFLATE)
+		{
+			deflater.finish();
+
+			while (!deflater.finished())
+			{
+				deflate();
+			}
+		}
+
+		if (iSegmentLength > 0)
+		{
+			submitSegment();
+		}
+
+		while (!dqPending.isEmpty())
+		{
+			writeSegment(dqPending.poll());
+		}
+
+		writeData(mac.doFinal(), 0, MAC_LENGTH);
+
+		entry.lCompressedSize = lOffset - entry.lDataOffset;
+
+		//data descriptor with Zip64 sizes, the crc isn't used with AE-2
+		writeInt(0x08074b50);
+		writeInt(0);
+		writeLong(entry.lCompressedSize);
+		writeLong(entry.lSize);
+
+		flushHeader();
+
+		liEntries.add(entry);
+
+		entry = null;
+		key = null;
+		mac = null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long flushBlock() throws IOException
+	{
+		if (entry == null)
+		{
+			throw new IOException("No entry available!");
+		}
+
+		if (entry.iMethod == Zip4jConstants.COMP_DEFLATE)
+		{
+			int iLength;
+
+			do
+			{
+				iLength = deflater.deflate(byDeflated, 0, byDeflated.length, Deflater.FULL_FLUSH);
+
+				if (iLength > 0)
+				{
+					append(byDeflated, 0, iLength);
+				}
+			}
+			while (iLength == byDeflated.length);
+
+			return deflater.getBytesWritten();
+		}
+
+		return entry.lSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void finish() throws IOException
+	{
+		if (bFinished)
+		{
+			return;
+		}
+
+		closeEntry();
+
+		long lDirectoryOffset = lOffset;
+
+		for (Entry ent : liEntries)
+		{
+			writeCentralHeader(ent);
+		}
+
+		long lDirectorySize = lOffset - lDirectoryOffset;
+
+		int iCount = liEntries.size();
+
+		if (iCount >= ZIP64_ENTRY_LIMIT || lDirectoryOffset >= ZIP64_LIMIT || lDirectorySize >= ZIP64_LIMIT)
+		{
+			long lZip64Offset = lOffset;
+
+			//zip64 end of central directory record
+			writeInt(0x06064b50);
+			writeLong(44);
+			writeShort(45);
+			writeShort(45);
+			writeInt(0);
+			writeInt(0);
+			writeLong(iCount);
+			writeLong(iCount);
+			writeLong(lDirectorySize);
+			writeLong(lDirectoryOffset);
+
+			//zip64 end of central directory locator
+			writeInt(0x07064b50);
+			writeInt(0);
+			writeLong(lZip64Offset);
+			writeInt(1);
+		}
+
+		//end of central directory record
+		writeInt(0x06054b50);
+		writeShort(0);
+		writeShort(0);
+		writeShort(Math.min(iCount, ZIP64_ENTRY_LIMIT));
+		writeShort(Math.min(iCount, ZIP64_ENTRY_LIMIT));
+		writeInt(Math.min(lDirectorySize, ZIP64_LIMIT));
+		writeInt(Math.min(lDirectoryOffset, ZIP64_LIMIT));
+		writeShort(0);
+
+		flushHeader();
+
+		out.flush();
+
+		bFinished = true;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(int pByte) throws IOException
+	{
+		write(new byte[] {(byte)pByte}, 0, 1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(byte[] pData, int pOffset, int pLength) throws IOException
+	{
+		if (entry == null)
+		{
+			throw new IOException("No entry available!");
+		}
+
+		entry.lSize += pLength;
+
+		if (entry.iMethod == Zip4jConstants.COMP_DEFLATE)
+		{
+			deflater.setInput(pData, pOffset, pLength);
+
+			while (!deflater.needsInput())
+			{
+				deflate();
+			}
+		}
+		else
+		{
+			append(pData, pOffset, pLength);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		out.flush();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (deflater != null)
+		{
+			deflater.end();
+			deflater = null;
+		}
+
+		dqBuffers.clear();
+
+		out.close();
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Compresses the available input.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	private void deflate() throws IOException
+	{
+		int iLength = deflater.deflate(byDeflated, 0, byDeflated.length);
+
+		if (iLength > 0)
+		{
+			append(byDeflated, 0, iLength);
+		}
+	}
+
+	/**
+	 * Appends compressed data to the current segment. Full segments are encrypted.
+	 *
+	 * @param pData the data
+	 * @param pOffset the offset
+	 * @param pLength the number of bytes
+	 * @throws IOException if writing fails
+	 */
+	private void append(byte[] pData, int pOffset, int pLength) throws IOException
+	{
+		int iOffset = pOffset;
+		int iLength = pLength;
+
+		int iCopy;
+
+		while (iLength > 0)
+		{
+			if (bySegment == null)
+			{
+				bySegment = dqBuffers.isEmpty() ? new byte[SEGMENT_SIZE] : dqBuffers.poll();
+			}
+
+			iCopy = Math.min(iLength, SEGMENT_SIZE - iSegmentLength);
+
+			System.arraycopy(pData, iOffset, bySegment, iSegmentLength, iCopy);
+
+			iSegmentLength += iCopy;
+			iOffset += iCopy;
+			iLength -= iCopy;
+
+			if (iSegmentLength == SEGMENT_SIZE)
+			{
+				submitSegment();
+			}
+		}
+	}
+
+	/**
+	 * Submits the current segment for encryption. If too many segments are in encryption, the oldest
+	 * segments are written.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	private void submitSegment() throws IOException
+	{
+		final SecretKeySpec keySegment = key;
+		final byte[] byData = bySegment;
+		final int iLength = iSegmentLength;
+		final long lFirstBlock = lCounter;
+
+		lCounter += (iLength + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+		bySegment = null;
+		iSegmentLength = 0;
+
+		Future<Object> future = executor.submit(new Callable<Object>()
+		{
+			public Object call() throws Exception
+			{
+				encrypt(keySegment, lFirstBlock, byData, iLength);
+
+				return null;
+			}
+		});
+
+		dqPending.add(new Segment(byData, iLength, future));
+
+		while (dqPending.size() > iMaxPending)
+		{
+			writeSegment(dqPending.poll());
+		}
+	}
+
+	/**
+	 * Waits for the encryption of a segment and writes the segment.
+	 *
+	 * @param pSegment the segment
+	 * @throws IOException if encryption or writing fails
+	 */
+	private void writeSegment(Segment pSegment) throws IOException
+	{
+		try
+		{
+			pSegment.future.get();
+		}
+		catch (ExecutionException ee)
+		{
+			throw new IOException("Encryption failed!", ee.getCause());
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+
+			throw new IOException("Encryption interrupted!", ie);
+		}
+
+		//the authentication code is calculated in write order
+		mac.update(pSegment.data, 0, pSegment.length);
+
+		writeData(pSegment.data, 0, pSegment.length);
+
+		dqBuffers.add(pSegment.data);
+	}
+
+	/**
+	 * Encrypts data with AES in CTR mode. The counter is a little endian block number, starting with
+	 * <code>1</code> for the first block of an entry.
+	 *
+	 * @param pKey the key
+	 * @param pFirstBlock the counter of the first block
+	 * @param pData the data
+	 * @param pLength the number of bytes
+	 * @throws GeneralSecurityException if encryption fails
+	 */
+	private static void encrypt(SecretKeySpec pKey, long pFirstBlock, byte[] pData, int pLength) throws GeneralSecurityException
+	{
+		Keystream keystream = tlKeystream.get();
+
+		if (keystream == null)
+		{
+			keystream = new Keystream(Cipher.getInstance("AES/ECB/NoPadding"));
+
+			tlKeystream.set(keystream);
+		}
+
+		//the key changes per entry
+		if (keystream.key != pKey)
+		{
+			keystream.cipher.init(Cipher.ENCRYPT_MODE, pKey);
+			keystream.key = pKey;
+		}
+
+		int iStreamLength = (pLength + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+
+		byte[] byStream = keystream.buffer;
+
+		long lBlock = pFirstBlock;
+
+		for (int i = 0; i < iStreamLength; i += BLOCK_SIZE)
+		{
+			for (int j = 0; j < 8; j++)
+			{
+				byStream[i + j] = (byte)(lBlock >>> (j * 8));
+				byStream[i + j + 8] = 0;
+			}
+
+			lBlock++;
+		}
+
+		keystream.cipher.doFinal(byStream, 0, iStreamLength, byStream, 0);
+
+		for (int i = 0; i < pLength; i++)
+		{
+			pData[i] ^= byStream[i];
+		}
+	}
+
+	/**
+	 * Derives the key material from the password with PBKDF2 and HMAC-SHA1. The password characters are
+	 * used as bytes, like zip4j does.
+	 *
+	 * @param pPassword the password
+	 * @param pSalt the salt
+	 * @param pLength the number of key bytes
+	 * @return the key bytes
+	 * @throws GeneralSecurityException if derivation fails
+	 */
+	private static byte[] deriveKey(char[] pPassword, byte[] pSalt, int pLength) throws GeneralSecurityException
+	{
+		byte[] byPassword = new byte[pPassword.length];
+
+		for (int i = 0; i < pPassword.length; i++)
+		{
+			byPassword[i] = (byte)pPassword[i];
+		}
+
+		Mac prf = Mac.getInstance("HmacSHA1");
+		prf.init(new SecretKeySpec(byPassword, "HmacSHA1"));
+
+		int iHashLength = prf.getMacLength();
+
+		byte[] byKey = new byte[pLength];
+		byte[] byBlock = new byte[iHashLength];
+		byte[] byHash;
+
+		for (int iBlock = 1, iPos = 0; iPos < pLength; iBlock++, iPos += iHashLength)
+		{
+			prf.update(pSalt);
+			prf.update(new byte[] {(byte)(iBlock >>> 24), (byte)(iBlock >>> 16), (byte)(iBlock >>> 8), (byte)iBlock});
+
+			byHash = prf.doFinal();
+
+			System.arraycopy(byHash, 0, byBlock, 0, iHashLength);
+
+			for (int i = 1; i < ITERATIONS; i++)
+			{
+				byHash = prf.doFinal(byHash);
+
+				for (int j = 0; j < iHashLength; j++)
+				{
+					byBlock[j] ^= byHash[j];
+				}
+			}
+
+			System.arraycopy(byBlock, 0, byKey, iPos, Math.min(iHashLength, pLength - iPos));
+		}
+
+		return byKey;
+	}
+
+	/**
+	 * Writes the central directory header of an entry.
+	 *
+	 * @param pEntry the entry
+	 * @throws IOException if writing fails
+	 */
+	private void writeCentralHeader(Entry pEntry) throws IOException
+	{
+		boolean bSize64 = pEntry.lSize >= ZIP64_LIMIT;
+		boolean bCompressedSize64 = pEntry.lCompressedSize >= ZIP64_LIMIT;
+		boolean bOffset64 = pEntry.lOffset >= ZIP64_LIMIT;
+
+		int iZip64Length = ((bSize64 ? 1 : 0) + (bCompressedSize64 ? 1 : 0) + (bOffset64 ? 1 : 0)) * 8;
+
+		writeInt(0x02014b50);
+		writeShort(VERSION_AES);
+		writeShort(VERSION_AES);
+		writeShort(FLAGS);
+		writeShort(METHOD_AES);
+		writeInt(pEntry.lTime);
+		writeInt(0);
+		writeInt(bCompressedSize64 ? ZIP64_LIMIT : pEntry.lCompressedSize);
+		writeInt(bSize64 ? ZIP64_LIMIT : pEntry.lSize);
+		writeShort(pEntry.byName.length);
+		writeShort((iZip64Length > 0 ? iZip64Length + 4 : 0) + 11);
+		writeShort(0);
+		writeShort(0);
+		writeShort(0);
+		writeInt(0);
+		writeInt(bOffset64 ? ZIP64_LIMIT : pEntry.lOffset);
+		writeHeader(pEntry.byName);
+
+		if (iZip64Length > 0)
+		{
+			writeShort(0x0001);
+			writeShort(iZip64Length);
+
+			if (bSize64)
+			{
+				writeLong(pEntry.lSize);
+			}
+
+			if (bCompressedSize64)
+			{
+				writeLong(pEntry.lCompressedSize);
+			}
+
+			if (bOffset64)
+			{
+				writeLong(pEntry.lOffset);
+			}
+		}
+
+		writeAesExtraField(pEntry);
+
+		flushHeader();
+	}
+
+	/**
+	 * Writes the AES extra field of an entry.
+	 *
+	 * @param pEntry the entry
+	 */
+	private void writeAesExtraField(Entry pEntry)
+	{
+		writeShort(0x9901);
+		writeShort(7);
+		//AE-2
+		writeShort(2);
+		baosHeader.write('A');
+		baosHeader.write('E');
+		baosHeader.write(pEntry.iStrength);
+		writeShort(pEntry.iMethod);
+	}
+
+	/**
+	 * Writes a little endian short value to the header buffer.
+	 *
+	 * @param pValue the value
+	 */
+	private void writeShort(int pValue)
+	{
+		baosHeader.write(pValue);
+		baosHeader.write(pValue >>> 8);
+	}
+
+	/**
+	 * Writes a little endian int value to the header buffer.
+	 *
+	 * @param pValue the value
+	 */
+	private void writeInt(long pValue)
+	{
+		writeShort((int)pValue);
+		writeShort((int)(pValue >>> 16));
+	}
+
+	/**
+	 * Writes a little endian long value to the header buffer.
+	 *
+	 * @param pValue the value
+	 */
+	private void writeLong(long pValue)
+	{
+		writeInt(pValue);
+		writeInt(pValue >>> 32);
+	}
+
+	/**
+	 * Writes bytes to the header buffer.
+	 *
+	 * @param pData the bytes
+	 */
+	private void writeHeader(byte[] pData)
+	{
+		baosHeader.write(pData, 0, pData.length);
+	}
+
+	/**
+	 * Writes the header buffer to the output stream.
+	 *
+	 * @throws IOException if writing fails
+	 */
+	private void flushHeader() throws IOException
+	{
+		lOffset += baosHeader.size();
+
+		baosHeader.writeTo(out);
+		baosHeader.reset();
+	}
+
+	/**
+	 * Writes data to the output stream.
+	 *
+	 * @param pData the data
+	 * @param pOffset the offset
+	 * @param pLength the number of bytes
+	 * @throws IOException if writing fails
+	 */
+	private void writeData(byte[] pData, int pOffset, int pLength) throws IOException
+	{
+		out.write(pData, pOffset, pLength);
+
+		lOffset += pLength;
+	}
+
+	/**
+	 * Converts a time to MS-DOS date and time.
+	 *
+	 * @param pTime the time in milliseconds
+	 * @return the MS-DOS date in the upper and the time in the lower 16 bits
+	 */
+	private static long toDosTime(long pTime)
+	{
+		Calendar cal = Calendar.getInstance();
+		cal.setTimeInMillis(pTime);
+
+		int iYear = cal.get(Calendar.YEAR);
+
+		if (iYear < 1980)
+		{
+			return (1 << 21) | (1 << 16);
+		}
+
+		return (iYear - 1980) << 25 | (cal.get(Calendar.MONTH) + 1) << 21 | cal.get(Calendar.DAY_OF_MONTH) << 16
+			   | cal.get(Calendar.HOUR_OF_DAY) << 11 | cal.get(Calendar.MINUTE) << 5 | cal.get(Calendar.SECOND) >> 1;
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Inner classes
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * The <code>Entry</code> contains the central directory information of a written entry.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class Entry
+	{
+		/** the UTF-8 encoded name. */
+		private byte[] byName;
+
+		/** the compression method. */
+		private int iMethod;
+
+		/** the AES key strength. */
+		private int iStrength;
+
+		/** the MS-DOS modification time. */
+		private long lTime;
+
+		/** the offset of the local file header. */
+		private long lOffset;
+
+		/** the offset of the encrypted data. */
+		private long lDataOffset;
+
+		/** the compressed size, with salt, password verifier and authentication code. */
+		private long lCompressedSize;
+
+		/** the uncompressed size. */
+		private long lSize;
+
+	}	// Entry
+
+	/**
+	 * The <code>Segment</code> is a part of the compressed data of an entry, which is encrypted by
+	 * another thread.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class Segment
+	{
+		/** the data. */
+		private byte[] data;
+
+		/** the number of bytes. */
+		private int length;
+
+		/** the encryption. */
+		private Future<Object> future;
+
+		/**
+		 * Creates a new <code>Segment</code>.
+		 *
+		 * @param pData the data
+		 * @param pLength the number of bytes
+		 * @param pFuture the encryption
+		 */
+		private Segment(byte[] pData, int pLength, Future<Object> pFuture)
+		{
+			data = pData;
+			length = pLength;
+			future = pFuture;
+		}
+
+	}	// Segment
+
+	/**
+	 * The <code>Keystream</code> is the cipher and the keystream buffer of an encryption thread.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class Keystream
+	{
+		/** the AES cipher. */
+		private Cipher cipher;
+
+		/** the key of the cipher. */
+		private SecretKeySpec key;
+
+		/** the keystream buffer. */
+		private byte[] buffer = new byte[SEGMENT_SIZE];
+
+		/**
+		 * Creates a new <code>Keystream</code>.
+		 *
+		 * @param pCipher the AES cipher
+		 */
+		private Keystream(Cipher pCipher)
+		{
+			cipher = pCipher;
+		}
+
+	}	// Keystream
+
+}	// ParallelAesOutputStream
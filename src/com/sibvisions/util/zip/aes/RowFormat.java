@@ -0,0 +1,361 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - LOB references
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * The <code>RowFormat</code> reads and writes storage records in a compact binary format. Every value
+ * is written with a type tag followed by its raw data. Values of unknown types are written with java
+ * serialization.
+ *
+ * @author Ren Jahn
+ */
+final class RowFormat
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the tag for <code>null</code>. */
+	private static final int TYPE_NULL = 0;
+
+	/** the tag for {@link String}. */
+	private static final int TYPE_STRING = 1;
+
+	/** the tag for {@link BigDecimal}. */
+	private static final int TYPE_BIGDECIMAL = 2;
+
+	/** the tag for {@link BigInteger}. */
+	private static final int TYPE_BIGINTEGER = 3;
+
+	/** the tag for {@link Timestamp}. */
+	private static final int TYPE_TIMESTAMP = 4;
+
+	/** the tag for {@link java.sql.Date}. */
+	private static final int TYPE_SQLDATE = 5;
+
+	/** the tag for {@link Time}. */
+	private static final int TYPE_TIME = 6;
+
+	/** the tag for {@link Date}. */
+	private static final int TYPE_DATE = 7;
+
+	/** the tag for {@link Integer}. */
+	private static final int TYPE_INTEGER = 8;
+
+	/** the tag for {@link Long}. */
+	private static final int TYPE_LONG = 9;
+
+	/** the tag for {@link Double}. */
+	private static final int TYPE_DOUBLE = 10;
+
+	/** the tag for {@link Float}. */
+	private static final int TYPE_FLOAT = 11;
+
+	/** the tag for {@link Boolean}. */
+	private static final int TYPE_BOOLEAN = 12;
+
+	/** the tag for <code>byte[]</code>. */
+	private static final int TYPE_BINARY = 13;
+
+	/** the tag for a LOB value in the LOB file of a sort. */
+	private static final int TYPE_LOB = 14;
+
+	/** the tag for serialized objects. */
+	private static final int TYPE_SERIALIZED = 99;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Invisible constructor because <code>RowFormat</code> is a utility class.
+	 */
+	private RowFormat()
+	{
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Writes a record.
+	 *
+	 * @param pOut the output stream
+	 * @param pRow the record
+	 * @throws IOException if writing fails or a value is not serializable
+	 */
+	public static void write(DataOutputStream pOut, Object[] pRow) throws IOException
+	{
+		pOut.writeInt(pRow.length);
+
+		for (int i = 0; i < pRow.length; i++)
+		{
+			writeValue(pOut, pRow[i]);
+		}
+	}
+
+	/**
+	 * Reads a record.
+	 *
+	 * @param pIn the input stream
+	 * @return the record
+	 * @throws IOException if reading fails
+	 */
+	public static Object[] read(DataInputStream pIn) throws IOException
+	{
+		Object[] oRow = new Object[pIn.readInt()];
+
+		for (int i = 0; i < oRow.length; i++)
+		{
+			oRow[i] = readValue(pIn);
+		}
+
+		return oRow;
+	}
+
+	/**
+	 * Writes a single value.
+	 *
+	 * @param pOut the output stream
+	 * @param pValue the value
+	 * @throws IOException if writing fails or the value is not serializable
+	 */
+	private static void writeValue(DataOutputStream pOut, Object pValue) throws IOException
+	{
+		if (pValue == null)
+		{
+			pOut.writeByte(TYPE_NULL);
+		}
+		else if (pValue instanceof String)
+		{
+			pOut.writeByte(TYPE_STRING);
+			writeBytes(pOut, ((String)pValue).getBytes("UTF-8"));
+		}
+		else if (pValue instanceof BigDecimal)
+		{
+			BigDecimal bd = (BigDecimal)pValue;
+
+			pOut.writeByte(TYPE_BIGDECIMAL);
+			pOut.writeInt(bd.scale());
+			writeBytes(pOut, bd.unscaledValue().toByteArray());
+		}
+		else if (pValue instanceof BigInteger)
+		{
+			pOut.writeByte(TYPE_BIGINTEGER);
+			writeBytes(pOut, ((BigInteger)pValue).toByteArray());
+		}
+		else if (pValue instanceof Timestamp)
+		{
+			Timestamp ts = (Timestamp)pValue;
+
+			pOut.writeByte(TYPE_TIMESTAMP);
+			pOut.writeLong(ts.getTime());
+			pOut.writeInt(ts.getNanos());
+		}
+		else if (pValue instanceof java.sql.Date)
+		{
+			pOut.writeByte(TYPE_SQLDATE);
+			pOut.writeLong(((Date)pValue).getTime());
+		}
+		else if (pValue instanceof Time)
+		{
+			pOut.writeByte(TYPE_TIME);
+			pOut.writeLong(((Date)pValue).getTime());
+		}
+		else if (pValue.getClass() == Date.class)
+		{
+			pOut.writeByte(TYPE_DATE);
+			pOut.writeLong(((Date)pValue).getTime());
+		}
+		else if (pValue instanceof Integer)
+		{
+			pOut.writeByte(TYPE_INTEGER);
+			pOut.writeInt(((Integer)pValue).intValue());
+		}
+		else if (pValue instanceof Long)
+		{
+			pOut.writeByte(TYPE_LONG);
+			pOut.writeLong(((Long)pValue).longValue());
+		}
+		else if (pValue instanceof Double)
+		{
+			pOut.writeByte(TYPE_DOUBLE);
+			pOut.writeDouble(((Double)pValue).doubleValue());
+		}
+		else if (pValue instanceof Float)
+		{
+			pOut.writeByte(TYPE_FLOAT);
+			pOut.writeFloat(((Float)pValue).floatValue());
+		}
+		else if (pValue instanceof Boolean)
+		{
+			pOut.writeByte(TYPE_BOOLEAN);
+			pOut.writeBoolean(((Boolean)pValue).booleanValue());
+		}
+		else if (pValue instanceof byte[])
+		{
+			pOut.writeByte(TYPE_BINARY);
+			writeBytes(pOut, (byte[])pValue);
+		}
+		else if (pValue instanceof ExternalSort.LobStream)
+		{
+			ExternalSort.LobStream lob = (ExternalSort.LobStream)pValue;
+
+			pOut.writeByte(TYPE_LOB);
+			pOut.writeUTF(lob.file.getPath());
+			pOut.writeLong(lob.offset);
+			pOut.writeLong(lob.length);
+		}
+		else if (pValue instanceof Serializable)
+		{
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+			ObjectOutputStream oos = new ObjectOutputStream(baos);
+			oos.writeObject(pValue);
+			oos.close();
+
+			pOut.writeByte(TYPE_SERIALIZED);
+			writeBytes(pOut, baos.toByteArray());
+		}
+		else
+		{
+			throw new IOException("Value type " + pValue.getClass().getName() + " is not supported!");
+		}
+	}
+
+	/**
+	 * Reads a single value.
+	 *
+	 * @param pIn the input stream
+	 * @return the value
+	 * @throws IOException if reading fails
+	 */
+	private static Object readValue(DataInputStream pIn) throws IOException
+	{
+		int iType = pIn.readUnsignedByte();
+
+		switch (iType)
+		{
+			case TYPE_NULL:
+				return null;
+			case TYPE_STRING:
+				return new String(readBytes(pIn), "UTF-8");
+			case TYPE_BIGDECIMAL:
+				int iScale = pIn.readInt();
+
+				return new BigDecimal(new BigInteger(readBytes(pIn)), iScale);
+			case TYPE_BIGINTEGER:
+				return new BigInteger(readBytes(pIn));
+			case TYPE_TIMESTAMP:
+				Timestamp ts = new Timestamp(pIn.readLong());
+				ts.setNanos(pIn.readInt());
+
+				return ts;
+			case TYPE_SQLDATE:
+				return new java.sql.Date(pIn.readLong());
+			case TYPE_TIME:
+				return new Time(pIn.readLong());
+			case TYPE_DATE:
+				return new Date(pIn.readLong());
+			case TYPE_INTEGER:
+				return Integer.valueOf(pIn.readInt());
+			case TYPE_LONG:
+				return Long.valueOf(pIn.readLong());
+			case TYPE_DOUBLE:
+				return Double.valueOf(pIn.readDouble());
+			case TYPE_FLOAT:
+				return Float.valueOf(pIn.readFloat());
+			case TYPE_BOOLEAN:
+				return Boolean.valueOf(pIn.readBoolean());
+			case TYPE_BINARY:
+				return readBytes(pIn);
+			case TYPE_LOB:
+				File file = new File(pIn.readUTF());
+				long lOffset = pIn.readLong();
+
+				return new ExternalSort.LobStream(file, lOffset, pIn.readLong());
+			case TYPE_SERIALIZED:
+				ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes(pIn)));
+
+				try
+				{
+					return ois.readObject();
+				}
+				catch (ClassNotFoundException cnfe)
+				{
+					throw new IOException("Can't deserialize value!", cnfe);
+				}
+				finally
+				{
+					ois.close();
+				}
+			default:
+				throw new IOException("Unknown value type " + iType + "!");
+		}
+	}
+
+	/**
+	 * Writes a byte array with its length.
+	 *
+	 * @param pOut the output stream
+	 * @param pData the data
+	 * @throws IOException if writing fails
+	 */
+	private static void writeBytes(DataOutputStream pOut, byte[] pData) throws IOException
+	{
+		pOut.writeInt(pData.length);
+		pOut.write(pData);
+	}
+
+	/**
+	 * Reads a byte array written with {@link #writeBytes(DataOutputStream, byte[])}.
+	 *
+	 * @param pIn the input stream
+	 * @return the data
+	 * @throws IOException if reading fails
+	 */
+	private static byte[] readBytes(DataInputStream pIn) throws IOException
+	{
+		byte[] byData = new byte[pIn.readInt()];
+
+		pIn.readFully(byData);
+
+		return byData;
+	}
+
+}	// RowFormat
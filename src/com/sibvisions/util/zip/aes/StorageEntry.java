@@ -19,6 +19,10 @@
  * 27.08.2013 - [JR] - creation
  * 12.09.2013 - [JR] - setColumnNames with condition and sort
  *                   - sort definition for entry
+ * 19.10.2026 - [JR] - sort mode
+ *                   - compression level
+ *                   - LOBs as entries
+ *                   - column statistics, block index
  */
 package com.sibvisions.util.zip.aes;
 
@@ -44,6 +48,24 @@ public class StorageEntry
 	// Class members
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
+	/** use the compression of the export. */
+	public static final int COMPRESSION_DEFAULT = -2;
+	
+	/** choose the compression by a sample of the entry. */
+	public static final int COMPRESSION_ADAPTIVE = -1;
+	
+	/** store the entry without compression. */
+	public static final int COMPRESSION_STORE = 0;
+	
+	/** The sort modes. */
+	public enum SortMode
+	{
+		/** the storage sorts the records. */
+		Storage,
+		/** the export fetches unsorted records and sorts them. */
+		Export
+	}
+	
 	/** the entry name. */
 	private String name;
 	
@@ -56,15 +78,36 @@ public class StorageEntry
 	/** the sort definition. */
 	private SortDefinition sort;
 	
+	/** the sort mode. */
+	private SortMode sortMode = SortMode.Storage;
+	
 	/** the columns to use. */
 	private String[] saColumns;
 
 	/** the column labels to use. */
 	private String[] saLabels;
 	
+	/** the LOB columns. */
+	private String[] saLobColumns;
+	
+	/** the index column. */
+	private String sIndexColumn;
+	
+	/** the compression level. */
+	private int iCompressionLevel = COMPRESSION_DEFAULT;
+	
+	/** the number of records per index block. */
+	private int iIndexBlockSize = 0;
+	
 	/** whether to show column names as first record. */
 	private boolean bShowColumnNames = false;
 	
+	/** whether LOB columns are written as separate entries. */
+	private boolean bLobsAsEntries = false;
+	
+	/** whether column statistics are written as separate entry. */
+	private boolean bColumnStatistics = false;
+	
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	// Initialization
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -321,7 +364,72 @@ public class StorageEntry
 	{
 		return sort;
 	}
+	
+	/**
+	 * Sets where the records should be sorted. The default mode is {@link SortMode#Storage}, which passes
+	 * the sort definition to the storage. {@link SortMode#Export} fetches unsorted records and sorts them
+	 * with a merge sort that uses temporary files. Use it for storages which can't sort big data efficiently.
+	 * 
+	 * @param pMode the sort mode
+	 * @see StorageExport#setSortBufferSize(int)
+	 */
+	public void setSortMode(SortMode pMode)
+	{
+		if (pMode == null)
+		{
+			sortMode = SortMode.Storage;
+		}
+		else
+		{
+			sortMode = pMode;
+		}
+	}
+	
+	/**
+	 * Gets where the records should be sorted.
+	 * 
+	 * @return the sort mode
+	 */
+	public SortMode getSortMode()
+	{
+		return sortMode;
+	}
 
+	/**
+	 * Sets the compression level of this entry. The level is one of {@link #COMPRESSION_DEFAULT},
+	 * {@link #COMPRESSION_ADAPTIVE}, {@link #COMPRESSION_STORE} or a deflate level from <code>1</code>
+	 * (fastest) to <code>9</code> (best compression).
+	 * <p>
+	 * Stored entries are written as stream, so the CRC and the sizes are written to a data descriptor
+	 * after the data and not to the local header. zip4j always writes data descriptors. Most tools read
+	 * such entries with the central directory, but stream readers like {@link java.util.zip.ZipInputStream}
+	 * reject stored entries with a data descriptor. Use a deflate level if the archive will be read as
+	 * stream. Adaptive compression never stores entries.
+	 * 
+	 * @param pLevel the compression level
+	 * @see StorageExport#setAdaptiveCompression(boolean)
+	 */
+	public void setCompressionLevel(int pLevel)
+	{
+		if (pLevel < COMPRESSION_DEFAULT || pLevel > 9)
+		{
+			throw new IllegalArgumentException("Invalid compression level: " + pLevel);
+		}
+		
+		iCompressionLevel = pLevel;
+	}
+	
+	/**
+	 * Gets the compression level of this entry.
+	 * 
+	 * @return the compression level
+	 * @see #setCompressionLevel(int)
+	 */
+	public int getCompressionLevel()
+	{
+		return iCompressionLevel;
+	}
+	
 	/**
 	 * Sets whether column names should be shown as first record.
 	 * 
@@ -342,4 +450,131 @@ public class StorageEntry
 		return bShowColumnNames;
 	}
 	
+	/**
+	 * Sets whether LOB columns should be written as separate archive entries. Every LOB value is
+	 * streamed to the entry <code>&lt;name&gt;_lob/&lt;column&gt;/&lt;row&gt;</code> and the CSV
+	 * cell contains the entry name instead of the value. Empty cells are <code>null</code> values.
+	 * The memory usage doesn't depend on the LOB size, if the storage delivers LOBs as streams,
+	 * {@link java.sql.Blob}, {@link java.sql.Clob} or {@link jvx.rad.io.IFileHandle}.
+	 * <p>
+	 * Without LOB column names, only columns with a {@link jvx.rad.model.datatype.BinaryDataType} are
+	 * written as entries. Large text columns, e.g. with {@link java.io.Reader} or {@link java.sql.Clob}
+	 * values, have a string data type and must be named with {@link #setLobColumnNames(String...)}.
+	 * 
+	 * @param pEntries <code>true</code> to write LOB columns as separate entries
+	 * @see #setLobColumnNames(String...)
+	 */
+	public void setLobsAsEntries(boolean pEntries)
+	{
+		bLobsAsEntries = pEntries;
+	}
+	
+	/**
+	 * Gets whether LOB columns should be written as separate archive entries.
+	 * 
+	 * @return <code>true</code> if LOB columns are written as separate entries
+	 */
+	public boolean isLobsAsEntries()
+	{
+		return bLobsAsEntries;
+	}
+	
+	/**
+	 * Sets the columns which should be written as separate entries, e.g. large text columns. If no
+	 * columns are set, all binary columns are written as separate entries.
+	 * 
+	 * @param pColumnNames the LOB column names or <code>null</code> to use all binary columns
+	 * @see #setLobsAsEntries(boolean)
+	 */
+	public void setLobColumnNames(String... pColumnNames)
+	{
+		saLobColumns = pColumnNames;
+	}
+	
+	/**
+	 * Gets the columns which should be written as separate entries.
+	 * 
+	 * @return the LOB column names or <code>null</code> if all binary columns are used
+	 */
+	public String[] getLobColumnNames()
+	{
+		return saLobColumns;
+	}
+	
+	/**
+	 * Sets the number of records per block. If set, the entry is written in blocks which can be
+	 * decompressed independently and the entry <code>&lt;name&gt;_index.csv</code> contains the
+	 * key range, the first record and the uncompressed and compressed offset of every block. Readers
+	 * can decompress only the blocks with the required keys. The compressed offset is relative to
+	 * the decrypted entry data, so AES encrypted entries can be decrypted from the containing
+	 * 16 byte block on.
+	 * 
+	 * @param pRecords the number of records per block or <code>0</code> to write the entry without blocks
+	 * @see #setIndexColumnName(String)
+	 */
+	public void setIndexBlockSize(int pRecords)
+	{
+		if (pRecords < 0)
+		{
+			throw new IllegalArgumentException("Invalid block size: " + pRecords);
+		}
+		
+		iIndexBlockSize = pRecords;
+	}
+	
+	/**
+	 * Gets the number of records per block.
+	 * 
+	 * @return the number of records or <code>0</code> if the entry is written without blocks
+	 */
+	public int getIndexBlockSize()
+	{
+		return iIndexBlockSize;
+	}
+	
+	/**
+	 * Sets the key column of the block index. If no column is set, the first sort column or the first
+	 * exported column is used. The key ranges of the blocks don't overlap if the records are sorted by
+	 * the key column.
+	 * 
+	 * @param pColumnName the column name or <code>null</code> to use the default column
+	 * @see #setIndexBlockSize(int)
+	 */
+	public void setIndexColumnName(String pColumnName)
+	{
+		sIndexColumn = pColumnName;
+	}
+	
+	/**
+	 * Gets the key column of the block index.
+	 * 
+	 * @return the column name or <code>null</code> if the default column is used
+	 */
+	public String getIndexColumnName()
+	{
+		return sIndexColumn;
+	}
+	
+	/**
+	 * Sets whether the minimum, maximum, null count and estimated distinct count of every exported column
+	 * should be calculated. The statistics are written to the entry <code>&lt;name&gt;_stats.csv</code>
+	 * and are available with {@link EntryReport#getStatistics()}.
+	 * 
+	 * @param pStatistics <code>true</code> to calculate column statistics
+	 */
+	public void setColumnStatistics(boolean pStatistics)
+	{
+		bColumnStatistics = pStatistics;
+	}
+	
+	/**
+	 * Gets whether column statistics should be calculated.
+	 * 
+	 * @return <code>true</code> if column statistics are calculated
+	 */
+	public boolean isColumnStatistics()
+	{
+		return bColumnStatistics;
+	}
+	
 }	// StorageEntry
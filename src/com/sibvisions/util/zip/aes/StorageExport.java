@@ -19,28 +19,44 @@
  * 27.08.2013 - [JR] - creation
  * 12.09.2013 - [JR] - use sort of entry
  * 22.10.2013 - [JR] - jvx lib update
+ * 19.10.2026 - [JR] - sort mode Export: sort with temporary files
+ *                   - stream entries, adaptive compression, entry reports
+ *                   - EntryWriter, LOBs as separate entries
+ *                   - fan-out export to multiple targets
+ *                   - read records with cursors
+ *                   - multipart upload
+ *                   - parallel AES encryption
+ *                   - column statistics, block index
+ *                   - sort buffer memory
+ *                   - export state per target in TargetArchive
+ *                   - close archives after a failed finish, abort failed uploads
+ *                   - export returns the reports of the targets
+ *                   - serial parts of parallel encryption documented
  */
 package com.sibvisions.util.zip.aes;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import jvx.rad.model.datatype.IDataType;
-import jvx.rad.persist.ColumnMetaData;
+import jvx.rad.model.SortDefinition;
+import jvx.rad.persist.DataSourceException;
 import jvx.rad.persist.MetaData;
 
 import net.lingala.zip4j.exception.ZipException;
-import net.lingala.zip4j.io.StaticEntry;
-import net.lingala.zip4j.io.ZipOutputStream;
 import net.lingala.zip4j.model.ZipParameters;
 import net.lingala.zip4j.util.Zip4jConstants;
 
-import com.sibvisions.rad.model.DataBookCSVExporter;
 import com.sibvisions.rad.persist.AbstractStorage;
 import com.sibvisions.util.ArrayUtil;
-import com.sibvisions.util.type.StringUtil;
+import com.sibvisions.util.log.ILogger;
+import com.sibvisions.util.log.LoggerFactory;
+import com.sibvisions.util.zip.aes.StorageEntry.SortMode;
 
 /**
  * The <code>StorageExport</code> exports data of {@link AbstractStorage}s.
@@ -53,6 +69,12 @@ public class StorageExport
 	// Class members
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
+	/** the logger. */
+	private static ILogger logger = LoggerFactory.getInstance(StorageExport.class);
+	
+	/** the encryption thread counter. */
+	private static AtomicInteger aiThreadCount = new AtomicInteger();
+	
 	/** the separator character. */ 
 	private String sSeparator = ";";
 	
@@ -62,6 +84,36 @@ public class StorageExport
 	/** the list of export entries. */
 	private List<StorageEntry> liEntries = new ArrayUtil<StorageEntry>();
 	
+	/** the directory for temporary files. */
+	private File fiTempDirectory;
+	
+	/** the reports of the last export. */
+	private List<EntryReport> liReports = new ArrayUtil<EntryReport>();
+	
+	/** the compression tradeoff between speed and size. */
+	private float fCompressionTradeoff = 0.5f;
+	
+	/** the maximum number of records which will be sorted in memory. */
+	private int iSortBufferSize = 100000;
+	
+	/** the maximum estimated size of the records which will be sorted in memory. */
+	private long lSortBufferMemory = 64L * 1024 * 1024;
+	
+	/** the sample size for adaptive compression. */
+	private int iCompressionSampleSize = 64 * 1024;
+	
+	/** the part size for multipart uploads. */
+	private int iUploadPartSize = MultipartOutputStream.DEFAULT_PART_SIZE;
+	
+	/** the maximum number of parts in flight for multipart uploads. */
+	private int iUploadPartsInFlight = MultipartOutputStream.DEFAULT_PARTS_IN_FLIGHT;
+	
+	/** the number of threads for AES encryption. */
+	private int iEncryptionThreads = 1;
+	
+	/** whether the compression is chosen by a sample of every entry. */
+	private boolean bAdaptiveCompression = false;
+	
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 	// User-defined methods
 	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -106,6 +158,226 @@ public class StorageExport
 		return sPassword;
 	}
 	
+	/**
+	 * Sets the directory for temporary files.
+	 * 
+	 * @param pDirectory the directory or <code>null</code> to use the default temp directory
+	 */
+	public void setTempDirectory(File pDirectory)
+	{
+		fiTempDirectory = pDirectory;
+	}
+	
+	/**
+	 * Gets the directory for temporary files.
+	 * 
+	 * @return the directory or <code>null</code> if the default temp directory is used
+	 */
+	public File getTempDirectory()
+	{
+		return fiTempDirectory;
+	}
+	
+	/**
+	 * Sets the maximum number of records which will be sorted in memory, for entries with
+	 * sort mode {@link SortMode#Export}. If an entry has more records, sorted runs of this
+	 * size are written to temporary files and merged while writing the entry. The memory of the
+	 * buffer is also limited, see {@link #setSortBufferMemory(long)}. A run is written if one of the
+	 * limits is reached.
+	 * 
+	 * @param pRecords the number of records
+	 */
+	public void setSortBufferSize(int pRecords)
+	{
+		iSortBufferSize = pRecords;
+	}
+	
+	/**
+	 * Gets the maximum number of records which will be sorted in memory.
+	 * 
+	 * @return the number of records
+	 */
+	public int getSortBufferSize()
+	{
+		return iSortBufferSize;
+	}
+	
+	/**
+	 * Sets the maximum memory for records which will be sorted in memory, for entries with sort mode
+	 * {@link SortMode#Export}. The size of every record is estimated from its values. If the records
+	 * of an entry need more memory, sorted runs are written to temporary files and merged while writing
+	 * the entry. LOB values, e.g. streams, are always written to a temporary file and don't use
+	 * the buffer.
+	 * 
+	 * @param pBytes the maximum estimated size of the records, in bytes
+	 * @see #setSortBufferSize(int)
+	 */
+	public void setSortBufferMemory(long pBytes)
+	{
+		lSortBufferMemory = pBytes;
+	}
+	
+	/**
+	 * Gets the maximum memory for records which will be sorted in memory.
+	 * 
+	 * @return the maximum estimated size of the records, in bytes
+	 */
+	public long getSortBufferMemory()
+	{
+		return lSortBufferMemory;
+	}
+	
+	/**
+	 * Sets whether the compression should be chosen by a sample of every entry. The first bytes of an entry
+	 * are compressed and the measured ratio decides which deflate level will be used. Entries are never
+	 * stored, badly compressible entries are deflated with the fastest level. LOB entries are compressed
+	 * adaptive as well. Entries with a compression level are not affected.
+	 * 
+	 * @param pAdaptive <code>true</code> to choose the compression by a sample, <code>false</code> to use
+	 *                  normal deflate compression
+	 * @see #setCompressionTradeoff(float)
+	 * @see StorageEntry#setCompressionLevel(int)
+	 */
+	public void setAdaptiveCompression(boolean pAdaptive)
+	{
+		bAdaptiveCompression = pAdaptive;
+	}
+	
+	/**
+	 * Gets whether the compression will be chosen by a sample of every entry.
+	 * 
+	 * @return <code>true</code> if compression is adaptive
+	 */
+	public boolean isAdaptiveCompression()
+	{
+		return bAdaptiveCompression;
+	}
+	
+	/**
+	 * Sets the tradeoff between CPU usage and archive size for adaptive compression. <code>0</code> prefers
+	 * speed: the fastest deflate level is used. <code>1</code> prefers size: the best deflate level is used,
+	 * unless the sample shows that compressing saves only a little.
+	 * 
+	 * @param pTradeoff the tradeoff between <code>0</code> and <code>1</code>, default is <code>0.5</code>
+	 */
+	public void setCompressionTradeoff(float pTradeoff)
+	{
+		fCompressionTradeoff = pTradeoff;
+	}
+	
+	/**
+	 * Gets the tradeoff between CPU usage and archive size for adaptive compression.
+	 * 
+	 * @return the tradeoff
+	 */
+	public float getCompressionTradeoff()
+	{
+		return fCompressionTradeoff;
+	}
+	
+	/**
+	 * Sets the number of bytes which will be sampled for adaptive compression.
+	 * 
+	 * @param pSize the sample size in bytes
+	 */
+	public void setCompressionSampleSize(int pSize)
+	{
+		iCompressionSampleSize = pSize;
+	}
+	
+	/**
+	 * Gets the number of bytes which will be sampled for adaptive compression.
+	 * 
+	 * @return the sample size in bytes
+	 */
+	public int getCompressionSampleSize()
+	{
+		return iCompressionSampleSize;
+	}
+	
+	/**
+	 * Sets the part size for multipart uploads.
+	 * 
+	 * @param pSize the part size in bytes
+	 * @see #export(IMultipartUpload)
+	 */
+	public void setUploadPartSize(int pSize)
+	{
+		iUploadPartSize = pSize;
+	}
+	
+	/**
+	 * Gets the part size for multipart uploads.
+	 * 
+	 * @return the part size in bytes
+	 */
+	public int getUploadPartSize()
+	{
+		return iUploadPartSize;
+	}
+	
+	/**
+	 * Sets the maximum number of parts which are uploaded at the same time, for multipart uploads.
+	 * 
+	 * @param pParts the number of parts
+	 * @see #export(IMultipartUpload)
+	 */
+	public void setUploadPartsInFlight(int pParts)
+	{
+		iUploadPartsInFlight = pParts;
+	}
+	
+	/**
+	 * Gets the maximum number of parts which are uploaded at the same time, for multipart uploads.
+	 * 
+	 * @return the number of parts
+	 */
+	public int getUploadPartsInFlight()
+	{
+		return iUploadPartsInFlight;
+	}
+	
+	/**
+	 * Sets the number of threads which encrypt the data of an entry. With more than one thread, AES
+	 * encrypted entries are written in segments which are encrypted in parallel. The archive stays WinZip
+	 * AE-2 compatible.
+	 * <p>
+	 * Only the AES encryption runs in parallel. Deflate compression and the HMAC-SHA1 authentication of
+	 * the encrypted data run serially on the thread which exports, because both need the data in order.
+	 * The speedup is limited by these serial parts: more threads only help if encryption is the
+	 * bottleneck, e.g. for stored or fast compressed entries.
+	 * 
+	 * @param pThreads the number of threads, <code>1</code> for sequential encryption
+	 */
+	public void setEncryptionThreads(int pThreads)
+	{
+		iEncryptionThreads = pThreads;
+	}
+	
+	/**
+	 * Gets the number of threads which encrypt the data of an entry.
+	 * 
+	 * @return the number of threads
+	 */
+	public int getEncryptionThreads()
+	{
+		return iEncryptionThreads;
+	}
+	
+	/**
+	 * Gets the reports of all entries of the last export. If the last export had multiple targets, the
+	 * reports of the first target are returned. The reports of all targets are returned by
+	 * {@link #export(ExportTarget...)}.
+	 * 
+	 * @return the entry reports
+	 */
+	public EntryReport[] getReports()
+	{
+		EntryReport[] reports = new EntryReport[liReports.size()];
+		
+		return liReports.toArray(reports);
+	}
+	
 	/**
 	 * Adds an export entry to the archive.
 	 * 
@@ -143,179 +415,444 @@ public class StorageExport
 	 * Creates an AES zip archive with UTF-8, CSV data from all entries.
 	 * 
 	 * @param pStream the output stream
+	 * @return the reports of all entries
+	 * @throws ZipException if zip creation fails or data access fails
+	 */
+	public EntryReport[] export(OutputStream pStream) throws Exception
+	{
+		return export(new ExportTarget(pStream, sPassword, sSeparator))[0];
+	}
+	
+	/**
+	 * Creates an AES zip archive with UTF-8, CSV data from all entries and uploads the archive in parts
+	 * while it is created. The upload is aborted if the export fails.
+	 * 
+	 * @param pUpload the upload
+	 * @return the reports of all entries
+	 * @throws ZipException if zip creation fails, data access fails or the upload fails
+	 * @see MultipartOutputStream
+	 */
+	public EntryReport[] export(IMultipartUpload pUpload) throws Exception
+	{
+		return export(new MultipartOutputStream(pUpload, iUploadPartSize, iUploadPartsInFlight));
+	}
+	
+	/**
+	 * Creates a zip archive with UTF-8, CSV data from all entries for every target. The records of every
+	 * entry are fetched only once and the CSV data is encoded only once for all targets with the same
+	 * separator. Compression and encryption are done per target. The records are read with a cursor if the
+	 * storage is an {@link ICursorStorage}, otherwise page by page. If the export fails, the uploads of
+	 * targets with a {@link MultipartOutputStream} are aborted.
+	 * 
+	 * @param pTargets the targets
+	 * @return the reports of all entries per target, in the same order as the targets
 	 * @throws ZipException if zip creation fails or data access fails
 	 */
-	public void export(OutputStream pStream) throws Exception
+	public EntryReport[][] export(ExportTarget... pTargets) throws Exception
 	{
-		ZipParameters parameters = new ZipParameters();
-		parameters.setCompressionMethod(Zip4jConstants.COMP_DEFLATE);
-		parameters.setCompressionLevel(Zip4jConstants.DEFLATE_LEVEL_NORMAL);
+		liReports.clear();
 		
-		if (sPassword != null)
-		{
-			parameters.setEncryptFiles(true);
-			parameters.setEncryptionMethod(Zip4jConstants.ENC_METHOD_AES);
-			parameters.setAesKeyStrength(Zip4jConstants.AES_STRENGTH_256);
-			parameters.setPassword(sPassword);
-		}
+		boolean bSuccess = false;
+		
+		ExecutorService executor = null;
+		
+		TargetArchive[] archives = new TargetArchive[pTargets.length];
 		
-		ZipOutputStream zos = new ZipOutputStream(pStream);
-
 		try
 		{
-			AbstractStorage storage;
+			if (iEncryptionThreads > 1)
+			{
+				executor = Executors.newFixedThreadPool(iEncryptionThreads, new ThreadFactory()
+				{
+					public Thread newThread(Runnable pRunnable)
+					{
+						Thread th = new Thread(pRunnable, "Encryption-" + aiThreadCount.incrementAndGet());
+						th.setDaemon(true);
+						
+						return th;
+					}
+				});
+			}
+			
+			for (int i = 0; i < pTargets.length; i++)
+			{
+				archives[i] = new TargetArchive(pTargets[i], createParameters(pTargets[i]),
+						                        pTargets[i].getSeparator() != null ? pTargets[i].getSeparator() : sSeparator);
+				archives[i].zos = createArchiveStream(archives[i], executor);
+			}
 			
 			MetaData mdata;
 			
-			ColumnMetaData[] cmdata;
+			ExternalSort sorter;
 			
-			IDataType[] dataType;
+			EntryWriter writer;
 			
-			List<Object[]> lResult;
+			EntryReport[][] reports;
+			
+			IRowCursor cursor;
 			
-			String sLabel;
-
-			String[] sEntryColumnNames;
-			String[] sEntryColumnLabels;
 			Object[] oData;
-	
-			OutputStreamWriter oswStream;
 			
-			ByteArrayOutputStream baos;
+			boolean bCopy;
 	
-			int iStart;
-			int[] iColumnNameIndex;
-			
-			boolean bAllFetched;
-			
 			for (StorageEntry entry : liEntries)
 			{
-				bAllFetched = false;
-				
-				iStart = 0;
-				
-				storage = entry.getStorage();
-				
-				mdata = storage.getMetaData();
+				mdata = entry.getStorage().getMetaData();
 	
-				cmdata = mdata.getColumnMetaData();
-				
-				sEntryColumnNames = entry.getColumnNames();
-				
-				if (sEntryColumnNames == null)
-				{
-					sEntryColumnNames = mdata.getColumnNames();
-				}
-
-				sEntryColumnLabels = entry.getColumnLabels();
-				
-				if (sEntryColumnLabels == null)
-				{
-					sEntryColumnLabels = null;
-				}				
-				
-				iColumnNameIndex = new int[sEntryColumnNames.length];
-				
-				dataType = new IDataType[sEntryColumnNames.length];
+				writer = new EntryWriter(this, archives, entry, mdata);
 				
-				for (int i = 0, idx; i < sEntryColumnNames.length; i++)
+				try
 				{
-					idx = mdata.getColumnMetaDataIndex(sEntryColumnNames[i]);
-					
-					iColumnNameIndex[i] = idx;
-	
-					if (idx >= 0)
+					if (entry.getSortMode() == SortMode.Export && entry.getSortDefinition() != null)
 					{
-						dataType[i] = cmdata[idx].createDataType();
-					}
-				}
-				
-				baos = new ByteArrayOutputStream();
-				
-				oswStream = new OutputStreamWriter(baos, "UTF-8");
-				
-				if (entry.isShowColumnNames())
-				{
-					for (int i = 0; i < sEntryColumnNames.length; i++)
-					{
-						if (i > 0)
-						{
-							oswStream.write(sSeparator);
-						}
+						sorter = new ExternalSort(mdata, entry.getSortDefinition(), iSortBufferSize, lSortBufferMemory, fiTempDirectory);
 						
-						if (sEntryColumnLabels != null && sEntryColumnLabels.length > i)
+						try
 						{
-							sLabel = sEntryColumnLabels[i];
-						}
-						else
-						{
-							sLabel = null;
+							//read unsorted records
+							cursor = openCursor(entry, null);
+							
+							try
+							{
+								//cursors may reuse the record
+								bCopy = !(cursor instanceof FetchCursor);
+								
+								while (cursor.next())
+								{
+									oData = cursor.getRow();
+									
+									sorter.add(bCopy ? oData.clone() : oData);
+								}
+							}
+							finally
+							{
+								cursor.close();
+							}
+							
+							sorter.finish();
+							
+							while ((oData = sorter.next()) != null)
+							{
+								writer.writeRow(oData);
+							}
 						}
-						
-						
-						if (StringUtil.isEmpty(sLabel))
+						finally
 						{
-							sLabel = ColumnMetaData.getDefaultLabel(sEntryColumnNames[i]);
+							sorter.close();
 						}
-						
-						oswStream.write(sLabel);
 					}
-
-					oswStream.write("\n");
-				}
-				
-				while (!bAllFetched)
-				{
-					lResult = storage.fetch(entry.getCondition(), entry.getSortDefinition(), iStart, 1000);
-					
-					//continue fetching
-					iStart += lResult.size();
-					
-					//write rows
-					for (int i = 0, anz = lResult.size(); i < anz; i++)
+					else
 					{
-						oData = lResult.get(i);
+						cursor = openCursor(entry, entry.getSortDefinition());
 						
-						if (oData != null)
+						try
 						{
-							for (int j = 0; j < iColumnNameIndex.length; j++)
+							while (cursor.next())
 							{
-								if (j > 0)
-								{
-									oswStream.write(sSeparator);
-								}
-								
-								if (iColumnNameIndex[j] >= 0)
-								{
-									DataBookCSVExporter.writeQuoted(oswStream, dataType[j], oData[iColumnNameIndex[j]], sSeparator);
-								}
-							}		
-							
-							oswStream.write("\n");
+								writer.writeRow(cursor.getRow());
+							}
 						}
-						else
+						finally
 						{
-							bAllFetched = true;
+							cursor.close();
 						}
 					}
+					
+					reports = writer.finish();
+				}
+				finally
+				{
+					writer.close();
 				}
 				
-				oswStream.flush();
-				oswStream.close();
-				
-				baos.close();
+				for (int i = 0; i < pTargets.length; i++)
+				{
+					for (EntryReport report : reports[i])
+					{
+						archives[i].liReports.add(report);
+						
+						logger.debug(report);
+					}
+				}
 				
-				zos.putNextEntry(new StaticEntry(entry.getName(), baos.size()), parameters);
-				zos.write(baos.toByteArray());
-				zos.flush();
-				zos.closeEntry();
+				if (pTargets.length > 0)
+				{
+					liReports.addAll(Arrays.asList(reports[0]));
+				}
 			}
+			
+			bSuccess = true;
 		}
 		finally
 		{
-			zos.finish();
-			zos.close();
+			Exception exFirst = null;
+			
+			for (TargetArchive archive : archives)
+			{
+				if (archive != null && archive.zos != null)
+				{
+					try
+					{
+						closeArchive(archive, bSuccess);
+					}
+					catch (Exception ex)
+					{
+						if (exFirst == null)
+						{
+							exFirst = ex;
+						}
+					}
+				}
+			}
+			
+			if (executor != null)
+			{
+				executor.shutdownNow();
+			}
+			
+			//don't hide the export error
+			if (exFirst != null && bSuccess)
+			{
+				throw exFirst;
+			}
+		}
+		
+		EntryReport[][] reports = new EntryReport[archives.length][];
+		
+		for (int i = 0; i < archives.length; i++)
+		{
+			reports[i] = archives[i].liReports.toArray(new EntryReport[archives[i].liReports.size()]);
 		}
+		
+		return reports;
 	}
 	
+	/**
+	 * Opens a cursor for the records of an entry. If the storage doesn't support cursors, the records
+	 * will be fetched page by page.
+	 * 
+	 * @param pEntry the entry
+	 * @param pSort the sort definition
+	 * @return the cursor
+	 * @throws DataSourceException if opening the cursor fails
+	 */
+	private IRowCursor openCursor(StorageEntry pEntry, SortDefinition pSort) throws DataSourceException
+	{
+		AbstractStorage storage = pEntry.getStorage();
+		
+		IRowCursor cursor = null;
+		
+		if (storage instanceof ICursorStorage)
+		{
+			cursor = ((ICursorStorage)storage).openCursor(pEntry.getCondition(), pSort);
+		}
+		
+		if (cursor == null)
+		{
+			cursor = new FetchCursor(storage, pEntry.getCondition(), pSort, 1000);
+		}
+		
+		return cursor;
+	}
+	
+	/**
+	 * Creates the archive stream for a target. AES encrypted archives are encrypted in parallel, if
+	 * encryption threads are available.
+	 * 
+	 * @param pArchive the archive with zip parameters
+	 * @param pExecutor the encryption threads or <code>null</code> for sequential encryption
+	 * @return the archive stream
+	 */
+	private ArchiveOutputStream createArchiveStream(TargetArchive pArchive, ExecutorService pExecutor)
+	{
+		ZipParameters parameters = pArchive.parameters;
+		
+		if (pExecutor != null 
+			&& parameters.isEncryptFiles() 
+			&& parameters.getEncryptionMethod() == Zip4jConstants.ENC_METHOD_AES)
+		{
+			return new ParallelAesOutputStream(pArchive.target.getStream(), pExecutor, iEncryptionThreads * 2);
+		}
+		
+		return new Zip4jOutputStream(pArchive.target.getStream());
+	}
+	
+	/**
+	 * Finishes and closes the archive of a target. The archive is always closed, even if finishing
+	 * fails. An upload is aborted if the export failed or if finishing or closing the archive fails,
+	 * because an incomplete archive must not be completed.
+	 * 
+	 * @param pArchive the archive
+	 * @param pSuccess <code>true</code> if all entries were written
+	 * @throws Exception if finishing or closing the archive fails
+	 */
+	private void closeArchive(TargetArchive pArchive, boolean pSuccess) throws Exception
+	{
+		MultipartOutputStream upload = null;
+		
+		if (pArchive.target.getStream() instanceof MultipartOutputStream)
+		{
+			upload = (MultipartOutputStream)pArchive.target.getStream();
+		}
+		
+		Exception exFirst = null;
+		
+		try
+		{
+			if (pSuccess || upload == null)
+			{
+				pArchive.zos.finish();
+			}
+		}
+		catch (Exception ex)
+		{
+			exFirst = ex;
+		}
+		
+		if (upload != null && (!pSuccess || exFirst != null))
+		{
+			//closing the archive doesn't complete an aborted upload
+			abort(upload);
+		}
+		
+		try
+		{
+			pArchive.zos.close();
+		}
+		catch (Exception ex)
+		{
+			if (exFirst == null)
+			{
+				exFirst = ex;
+			}
+			
+			if (upload != null)
+			{
+				abort(upload);
+			}
+		}
+		
+		if (exFirst != null)
+		{
+			throw exFirst;
+		}
+	}
+	
+	/**
+	 * Aborts an upload. Errors are logged because the cause of the abort is more important.
+	 * 
+	 * @param pUpload the upload
+	 */
+	private void abort(MultipartOutputStream pUpload)
+	{
+		try
+		{
+			pUpload.abort();
+		}
+		catch (Exception ex)
+		{
+			logger.debug(ex);
+		}
+	}
+	
+	/**
+	 * Creates the zip parameters for a target. The parameters of the target are copied, otherwise
+	 * default parameters are used. The password of the target, the password of the parameters or the
+	 * password of the export is used, in this order. If a password is available, encryption is always
+	 * enabled: AES-256 is used, unless the parameters request standard zip encryption or another AES
+	 * key strength.
+	 * 
+	 * @param pTarget the target
+	 * @return the parameters
+	 * @throws CloneNotSupportedException if the parameters of the target can't be copied
+	 */
+	private ZipParameters createParameters(ExportTarget pTarget) throws CloneNotSupportedException
+	{
+		ZipParameters parameters;
+		
+		if (pTarget.getParameters() != null)
+		{
+			parameters = (ZipParameters)pTarget.getParameters().clone();
+		}
+		else
+		{
+			parameters = new ZipParameters();
+		}
+		
+		String sTargetPassword = pTarget.getPassword();
+		
+		if (sTargetPassword == null && (parameters.getPassword() == null || parameters.getPassword().length == 0))
+		{
+			sTargetPassword = sPassword;
+		}
+		
+		if (sTargetPassword != null)
+		{
+			parameters.setPassword(sTargetPassword);
+		}
+		
+		if (parameters.getPassword() != null && parameters.getPassword().length > 0)
+		{
+			//a password never leads to an unencrypted archive
+			parameters.setEncryptFiles(true);
+			
+			if (parameters.getEncryptionMethod() != Zip4jConstants.ENC_METHOD_STANDARD)
+			{
+				parameters.setEncryptionMethod(Zip4jConstants.ENC_METHOD_AES);
+				
+				if (parameters.getAesKeyStrength() != Zip4jConstants.AES_STRENGTH_128 
+					&& parameters.getAesKeyStrength() != Zip4jConstants.AES_STRENGTH_192)
+				{
+					parameters.setAesKeyStrength(Zip4jConstants.AES_STRENGTH_256);
+				}
+			}
+		}
+		
+		return parameters;
+	}
+	
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Inner classes
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	
+	/**
+	 * The <code>TargetArchive</code> is the state of a target while exporting: the archive stream,
+	 * the used parameters and separator and the reports of the exported entries. The state isn't stored in the {@link ExportTarget}, so
+	 * targets are not changed by an export.
+	 * 
+	 * @author Ren Jahn
+	 */
+	static final class TargetArchive
+	{
+		/** the target. */
+		final ExportTarget target;
+		
+		/** the used zip parameters. */
+		final ZipParameters parameters;
+		
+		/** the used separator. */
+		final String sSeparator;
+		
+		/** the reports of the exported entries. */
+		final List<EntryReport> liReports = new ArrayUtil<EntryReport>();
+		
+		/** the archive stream. */
+		ArchiveOutputStream zos;
+		
+		/**
+		 * Creates a new <code>TargetArchive</code>.
+		 * 
+		 * @param pTarget the target
+		 * @param pParameters the used zip parameters
+		 * @param pSeparator the used separator
+		 */
+		private TargetArchive(ExportTarget pTarget, ZipParameters pParameters, String pSeparator)
+		{
+			target = pTarget;
+			parameters = pParameters;
+			sSeparator = pSeparator;
+		}
+		
+	}	// TargetArchive
+	
 }	// StorageExport
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2026 SIB Visions GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ *
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - blocks
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import net.lingala.zip4j.exception.ZipException;
+import net.lingala.zip4j.io.StaticEntry;
+import net.lingala.zip4j.io.ZipOutputStream;
+import net.lingala.zip4j.model.ZipParameters;
+import net.lingala.zip4j.util.Zip4jConstants;
+
+/**
+ * The <code>Zip4jOutputStream</code> writes zip archives with zip4j. Blocks are flushed with a
+ * replaced deflater of the zip4j stream.
+ *
+ * @author Ren Jahn
+ */
+final class Zip4jOutputStream extends ArchiveOutputStream
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the empty data for flushing. */
+	private static final byte[] EMPTY = new byte[0];
+
+	/** the zip4j stream. */
+	private BlockZipOutputStream zos;
+
+	/** the current entry name. */
+	private String sName;
+
+	/** the number of bytes written to the current entry. */
+	private long lEntryLength;
+
+	/** whether the current entry is compressed. */
+	private boolean bDeflate;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new <code>Zip4jOutputStream</code>.
+	 *
+	 * @param pStream the output stream
+	 */
+	Zip4jOutputStream(OutputStream pStream)
+	{
+		zos = new BlockZipOutputStream(pStream);
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Abstract methods implementation
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void putNextEntry(String pName, ZipParameters pParameters) throws IOException
+	{
+		sName = pName;
+		lEntryLength = 0;
+		bDeflate = pParameters.getCompressionMethod() == Zip4jConstants.COMP_DEFLATE;
+
+		//size is unknown before all data was written
+		pParameters.setSourceExternalStream(true);
+		pParameters.setFileNameInZip(pName);
+
+		try
+		{
+			zos.putNextEntry(new StaticEntry(pName, 0), pParameters);
+		}
+		catch (ZipException ze)
+		{
+			throw new IOException("Can't create entry " + pName + "!", ze);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void closeEntry() throws IOException
+	{
+		try
+		{
+			zos.closeEntry();
+		}
+		catch (ZipException ze)
+		{
+			throw new IOException("Can't close entry " + sName + "!", ze);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long flushBlock() throws IOException
+	{
+		if (bDeflate)
+		{
+			zos.blockDeflater.bFlush = true;
+
+			//zip4j deflates until the deflater doesn't need input
+			zos.write(EMPTY, 0, 0);
+
+			//zip4j removes the zlib header
+			return Math.max(0, zos.blockDeflater.getBytesWritten() - 2);
+		}
+
+		return lEntryLength;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void finish() throws IOException
+	{
+		try
+		{
+			zos.finish();
+		}
+		catch (ZipException ze)
+		{
+			throw new IOException("Can't finish archive!", ze);
+		}
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Overwritten methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(int pByte) throws IOException
+	{
+		lEntryLength++;
+
+		zos.write(pByte);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(byte[] pData, int pOffset, int pLength) throws IOException
+	{
+		lEntryLength += pLength;
+
+		zos.write(pData, pOffset, pLength);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		zos.flush();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		zos.close();
+
+		zos.blockDeflater.end();
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Inner classes
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * The <code>BlockZipOutputStream</code> is a zip4j stream with a {@link BlockDeflater}.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class BlockZipOutputStream extends ZipOutputStream
+	{
+		/** the flushing deflater. */
+		private BlockDeflater blockDeflater;
+
+		/**
+		 * Creates a new <code>BlockZipOutputStream</code>.
+		 *
+		 * @param pStream the output stream
+		 */
+		private BlockZipOutputStream(OutputStream pStream)
+		{
+			super(pStream);
+
+			deflater.end();
+
+			blockDeflater = new BlockDeflater();
+
+			deflater = blockDeflater;
+		}
+
+	}	// BlockZipOutputStream
+
+	/**
+	 * The <code>BlockDeflater</code> flushes all pending data with {@link Deflater#FULL_FLUSH}, if
+	 * requested. The next deflated data doesn't depend on previous data.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class BlockDeflater extends Deflater
+	{
+		/** whether a flush is requested. */
+		private boolean bFlush;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean needsInput()
+		{
+			return !bFlush && super.needsInput();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int deflate(byte[] pBuffer, int pOffset, int pLength)
+		{
+			if (bFlush)
+			{
+				int iLength = super.deflate(pBuffer, pOffset, pLength, FULL_FLUSH);
+
+				//the buffer wasn't filled, so all data was flushed
+				if (iLength < pLength)
+				{
+					bFlush = false;
+				}
+
+				return iLength;
+			}
+
+			return super.deflate(pBuffer, pOffset, pLength);
+		}
+
+	}	// BlockDeflater
+
+}	// Zip4jOutputStream
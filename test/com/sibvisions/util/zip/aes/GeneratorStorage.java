@@ -0,0 +1,564 @@
+/*
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - cursor support
+ *                   - streamed LOB values
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import jvx.rad.model.SortDefinition;
+import jvx.rad.model.condition.ICondition;
+import jvx.rad.model.datatype.BigDecimalDataType;
+import jvx.rad.model.datatype.BinaryDataType;
+import jvx.rad.model.datatype.StringDataType;
+import jvx.rad.model.datatype.TimestampDataType;
+import jvx.rad.persist.ColumnMetaData;
+import jvx.rad.persist.DataSourceException;
+import jvx.rad.persist.MetaData;
+
+import com.sibvisions.rad.persist.AbstractStorage;
+
+/**
+ * The <code>GeneratorStorage</code> is a read-only storage which generates its records on demand.
+ * Every value is computed from the row and column index, so the storage doesn't hold records in
+ * memory and every fetch of the same row returns the same values. Conditions and sort definitions
+ * are ignored. The records are read with a cursor which reuses one record array, if cursors are enabled.
+ *
+ * @author Ren Jahn
+ */
+public class GeneratorStorage extends AbstractStorage
+                              implements ICursorStorage
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** The generated column types. */
+	public enum ColumnType
+	{
+		/** {@link BigDecimal} values. */
+		Number,
+		/** {@link String} values. */
+		Text,
+		/** {@link Timestamp} values. */
+		Timestamp,
+		/** <code>byte[]</code> values. */
+		Binary,
+		/** {@link InputStream} values with the same bytes as {@link #Binary} values. */
+		BinaryStream,
+		/** {@link Reader} values with the same characters as {@link #Text} values. */
+		TextStream
+	}
+
+	/** the base time for timestamps. */
+	private static final long BASE_TIME = 1577836800000L;
+
+	/** the meta data. */
+	private MetaData mdata;
+
+	/** the column types. */
+	private ColumnType[] types;
+
+	/** the number of records. */
+	private int iRowCount;
+
+	/** the length of text and binary values. */
+	private int iValueLength;
+
+	/** whether the storage is open. */
+	private boolean bOpen;
+
+	/** whether cursors are enabled. */
+	private boolean bCursorEnabled = true;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Creates a new <code>GeneratorStorage</code>. The first column is always an <code>ID</code> column
+	 * with the row number, the other columns are named <code>COL1</code>, <code>COL2</code>, ...
+	 *
+	 * @param pRowCount the number of records
+	 * @param pValueLength the length of text and binary values
+	 * @param pTypes the types of the generated columns
+	 */
+	public GeneratorStorage(int pRowCount, int pValueLength, ColumnType... pTypes)
+	{
+		iRowCount = pRowCount;
+		iValueLength = pValueLength;
+		types = pTypes;
+
+		mdata = new MetaData();
+		mdata.addColumnMetaData(new ColumnMetaData("ID", BigDecimalDataType.TYPE_IDENTIFIER));
+
+		for (int i = 0; i < types.length; i++)
+		{
+			mdata.addColumnMetaData(new ColumnMetaData("COL" + (i + 1), getTypeIdentifier(types[i])));
+		}
+
+		mdata.setPrimaryKeyColumnNames(new String[] {"ID"});
+	}
+
+	/**
+	 * Creates a new <code>GeneratorStorage</code> with columns of all types, repeated <code>pWidth</code> times.
+	 *
+	 * @param pRowCount the number of records
+	 * @param pWidth the number of column groups
+	 * @param pValueLength the length of text values
+	 * @return the storage
+	 */
+	public static GeneratorStorage create(int pRowCount, int pWidth, int pValueLength)
+	{
+		ColumnType[] types = new ColumnType[pWidth * 3];
+
+		for (int i = 0; i < pWidth; i++)
+		{
+			types[i * 3] = ColumnType.Number;
+			types[i * 3 + 1] = ColumnType.Text;
+			types[i * 3 + 2] = ColumnType.Timestamp;
+		}
+
+		return new GeneratorStorage(pRowCount, pValueLength, types);
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Interface implementation
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public MetaData getMetaData() throws DataSourceException
+	{
+		return mdata;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getEstimatedRowCount(ICondition pFilter) throws DataSourceException
+	{
+		return iRowCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void close()
+	{
+		bOpen = false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public IRowCursor openCursor(ICondition pFilter, SortDefinition pSort) throws DataSourceException
+	{
+		if (!bCursorEnabled)
+		{
+			return null;
+		}
+
+		return new IRowCursor()
+		{
+			/** the reused record. */
+			private Object[] oRow = new Object[types.length + 1];
+
+			/** the current row index. */
+			private int iRow = -1;
+
+			public boolean next()
+			{
+				if (iRow + 1 >= iRowCount)
+				{
+					return false;
+				}
+
+				createRow(++iRow, oRow);
+
+				return true;
+			}
+
+			public Object[] getRow()
+			{
+				return oRow;
+			}
+
+			public void close()
+			{
+				iRow = iRowCount;
+			}
+		};
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Abstract methods implementation
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void open() throws DataSourceException
+	{
+		bOpen = true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isOpen()
+	{
+		return bOpen;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected List<Object[]> executeFetch(ICondition pFilter, SortDefinition pSort, int pFromRow, int pMinimumRowCount) throws DataSourceException
+	{
+		int iToRow = pMinimumRowCount < 0 ? iRowCount : (int)Math.min(iRowCount, (long)pFromRow + pMinimumRowCount);
+
+		List<Object[]> liRows = new ArrayList<Object[]>(Math.max(0, iToRow - pFromRow) + 1);
+
+		for (int i = pFromRow; i < iToRow; i++)
+		{
+			liRows.add(createRow(i, new Object[types.length + 1]));
+		}
+
+		if (iToRow >= iRowCount)
+		{
+			//all fetched
+			liRows.add(null);
+		}
+
+		return liRows;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Object[] executeRefetchRow(Object[] pDataRow) throws DataSourceException
+	{
+		return pDataRow;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Object[] executeInsert(Object[] pDataRow) throws DataSourceException
+	{
+		throw new DataSourceException("Storage is read-only!");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Object[] executeUpdate(Object[] pOldDataRow, Object[] pNewDataRow) throws DataSourceException
+	{
+		throw new DataSourceException("Storage is read-only!");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void executeDelete(Object[] pDeleteDataRow) throws DataSourceException
+	{
+		throw new DataSourceException("Storage is read-only!");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeCSV(OutputStream pStream, String[] pColumnNames, String[] pLabels, ICondition pFilter, SortDefinition pSort, String pSeparator) throws Exception
+	{
+		throw new DataSourceException("Use StorageExport!");
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Sets whether records are read with a cursor.
+	 *
+	 * @param pEnabled <code>true</code> to enable cursors, <code>false</code> to fetch records page by page
+	 */
+	public void setCursorEnabled(boolean pEnabled)
+	{
+		bCursorEnabled = pEnabled;
+	}
+
+	/**
+	 * Gets whether records are read with a cursor.
+	 *
+	 * @return <code>true</code> if cursors are enabled
+	 */
+	public boolean isCursorEnabled()
+	{
+		return bCursorEnabled;
+	}
+
+	/**
+	 * Fills a record with the generated values of a row.
+	 *
+	 * @param pRow the row index
+	 * @param pData the record
+	 * @return <code>pData</code>
+	 */
+	protected Object[] createRow(int pRow, Object[] pData)
+	{
+		pData[0] = BigDecimal.valueOf(pRow + 1);
+
+		long lHash;
+
+		for (int i = 0; i < types.length; i++)
+		{
+			lHash = hash(pRow, i);
+
+			switch (types[i])
+			{
+				case Number:
+					pData[i + 1] = BigDecimal.valueOf(lHash % 10000000, 2);
+					break;
+				case Text:
+					pData[i + 1] = createText(lHash);
+					break;
+				case Timestamp:
+					pData[i + 1] = new Timestamp(BASE_TIME + (lHash & 0xFFFFFFFFL) * 1000);
+					break;
+				case BinaryStream:
+					pData[i + 1] = new BinaryStream(lHash, iValueLength);
+					break;
+				case TextStream:
+					pData[i + 1] = new TextReader(lHash, iValueLength);
+					break;
+				default:
+					byte[] byData = new byte[iValueLength];
+
+					for (int j = 0; j < byData.length; j++)
+					{
+						lHash = lHash * 6364136223846793005L + 1442695040888963407L;
+						byData[j] = (byte)(lHash >>> 56);
+					}
+
+					pData[i + 1] = byData;
+			}
+		}
+
+		return pData;
+	}
+
+	/**
+	 * Creates a text value with a few words.
+	 *
+	 * @param pHash the value hash
+	 * @return the text
+	 */
+	private String createText(long pHash)
+	{
+		char[] chText = new char[iValueLength];
+
+		new TextReader(pHash, iValueLength).read(chText, 0, chText.length);
+
+		return new String(chText);
+	}
+
+	/**
+	 * Gets a well distributed, positive hash of a cell.
+	 *
+	 * @param pRow the row index
+	 * @param pColumn the column index
+	 * @return the hash
+	 */
+	private static long hash(int pRow, int pColumn)
+	{
+		long lHash = pRow * 0x9E3779B97F4A7C15L + pColumn;
+
+		lHash = (lHash ^ (lHash >>> 33)) * 0xFF51AFD7ED558CCDL;
+		lHash = (lHash ^ (lHash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+
+		return (lHash ^ (lHash >>> 33)) & Long.MAX_VALUE;
+	}
+
+	/**
+	 * Gets the jvx type identifier of a column type.
+	 *
+	 * @param pType the column type
+	 * @return the type identifier
+	 */
+	private static int getTypeIdentifier(ColumnType pType)
+	{
+		switch (pType)
+		{
+			case Number:
+				return BigDecimalDataType.TYPE_IDENTIFIER;
+			case Text:
+				return StringDataType.TYPE_IDENTIFIER;
+			case Timestamp:
+				return TimestampDataType.TYPE_IDENTIFIER;
+			case TextStream:
+				return StringDataType.TYPE_IDENTIFIER;
+			default:
+				return BinaryDataType.TYPE_IDENTIFIER;
+		}
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Inner classes
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * The <code>BinaryStream</code> generates the bytes of a binary value while reading, so
+	 * large values don't need memory.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class BinaryStream extends InputStream
+	{
+		/** the current hash. */
+		private long lHash;
+
+		/** the number of remaining bytes. */
+		private long lRemaining;
+
+		/**
+		 * Creates a new <code>BinaryStream</code>.
+		 *
+		 * @param pHash the value hash
+		 * @param pLength the value length
+		 */
+		private BinaryStream(long pHash, long pLength)
+		{
+			lHash = pHash;
+			lRemaining = pLength;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int read()
+		{
+			if (lRemaining == 0)
+			{
+				return -1;
+			}
+
+			lRemaining--;
+
+			lHash = lHash * 6364136223846793005L + 1442695040888963407L;
+
+			return (int)(lHash >>> 56);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int read(byte[] pBuffer, int pOffset, int pLength)
+		{
+			if (lRemaining == 0)
+			{
+				return -1;
+			}
+
+			int iLength = (int)Math.min(pLength, lRemaining);
+
+			for (int i = 0; i < iLength; i++)
+			{
+				pBuffer[pOffset + i] = (byte)read();
+			}
+
+			return iLength;
+		}
+
+	}	// BinaryStream
+
+	/**
+	 * The <code>TextReader</code> generates the characters of a text value while reading, so
+	 * large values don't need memory.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class TextReader extends Reader
+	{
+		/** the current hash. */
+		private long lHash;
+
+		/** the read position. */
+		private long lPosition;
+
+		/** the value length. */
+		private long lLength;
+
+		/**
+		 * Creates a new <code>TextReader</code>.
+		 *
+		 * @param pHash the value hash
+		 * @param pLength the value length
+		 */
+		private TextReader(long pHash, long pLength)
+		{
+			lHash = pHash;
+			lLength = pLength;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int read(char[] pBuffer, int pOffset, int pLength)
+		{
+			if (lPosition == lLength)
+			{
+				return -1;
+			}
+
+			int iLength = (int)Math.min(pLength, lLength - lPosition);
+
+			for (int i = 0; i < iLength; i++, lPosition++)
+			{
+				if (lPosition % 8 == 7)
+				{
+					pBuffer[pOffset + i] = ' ';
+				}
+				else
+				{
+					lHash = lHash * 6364136223846793005L + 1442695040888963407L;
+					pBuffer[pOffset + i] = (char)('a' + (int)((lHash >>> 33) % 26));
+				}
+			}
+
+			return iLength;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void close()
+		{
+			lPosition = lLength;
+		}
+
+	}	// TextReader
+
+}	// GeneratorStorage
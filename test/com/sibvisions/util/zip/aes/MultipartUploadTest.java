@@ -0,0 +1,507 @@
+/*
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.lingala.zip4j.core.ZipFile;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sibvisions.util.type.FileUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the multipart upload of archives with a local stand-in for an S3 compatible object storage.
+ *
+ * @author Ren Jahn
+ */
+public class MultipartUploadTest
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the object storage. */
+	private ObjectStorage storage;
+
+	/** the http server. */
+	private HttpServer server;
+
+	/** the server threads. */
+	private ExecutorService executor;
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Starts the object storage.
+	 *
+	 * @throws IOException if the server can't be started
+	 */
+	@Before
+	public void startServer() throws IOException
+	{
+		storage = new ObjectStorage();
+
+		executor = Executors.newCachedThreadPool();
+
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", storage);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * Stops the object storage.
+	 */
+	@After
+	public void stopServer()
+	{
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Gets the URL of an object.
+	 *
+	 * @param pKey the object key
+	 * @return the URL
+	 */
+	private String getUrl(String pKey)
+	{
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/bucket/" + pKey;
+	}
+
+	/**
+	 * Reads the content of an archive entry.
+	 *
+	 * @param pArchive the archive content
+	 * @param pPassword the password
+	 * @param pEntryName the entry name
+	 * @return the entry content
+	 * @throws Exception if reading fails
+	 */
+	private String readEntry(byte[] pArchive, String pPassword, String pEntryName) throws Exception
+	{
+		File fiArchive = File.createTempFile("upload", ".zip");
+
+		try
+		{
+			FileUtil.save(fiArchive, pArchive);
+
+			ZipFile zip = new ZipFile(fiArchive);
+			zip.setPassword(pPassword);
+
+			InputStream in = zip.getInputStream(zip.getFileHeader(pEntryName));
+
+			try
+			{
+				return new String(FileUtil.getContent(in, false), "UTF-8");
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		finally
+		{
+			fiArchive.delete();
+		}
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Test methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Tests uploading an archive in parallel parts, with failed parts.
+	 */
+	@Test
+	public void uploadArchive() throws Exception
+	{
+		storage.iDelay = 20;
+		storage.failPart(2, 2);
+
+		StorageExport export = new StorageExport();
+		export.add(new StorageEntry("data.csv", GeneratorStorage.create(30000, 2, 24)));
+		export.setPassword("testcase");
+		export.setUploadPartSize(64 * 1024);
+		export.setUploadPartsInFlight(3);
+
+		export.export(new HttpMultipartUpload(getUrl("archive.zip")));
+
+		byte[] byArchive = storage.mapObjects.get("/bucket/archive.zip");
+
+		Assert.assertNotNull(byArchive);
+		Assert.assertTrue(storage.iParts.get() > 10);
+		Assert.assertTrue(storage.iMaxInFlight.get() <= 3);
+		Assert.assertTrue(storage.iMaxInFlight.get() >= 2);
+		Assert.assertTrue(storage.liAborted.isEmpty());
+
+		Assert.assertEquals(30000, readEntry(byArchive, "testcase", "data.csv").split("\n").length);
+	}
+
+	/**
+	 * Tests that the upload will be aborted if a part can't be uploaded.
+	 */
+	@Test
+	public void abortUpload() throws Exception
+	{
+		storage.failPart(3, Integer.MAX_VALUE);
+
+		MultipartOutputStream stream = new MultipartOutputStream(new HttpMultipartUpload(getUrl("broken.zip")), 16 * 1024, 2);
+		stream.setMaxRetries(1);
+		stream.setRetryDelay(10);
+
+		StorageExport export = new StorageExport();
+		export.add(new StorageEntry("data.csv", GeneratorStorage.create(10000, 2, 24)));
+		export.setPassword("testcase");
+
+		try
+		{
+			export.export(stream);
+
+			Assert.fail("Upload didn't fail!");
+		}
+		catch (IOException ioe)
+		{
+			//expected
+		}
+
+		Assert.assertNull(storage.mapObjects.get("/bucket/broken.zip"));
+		Assert.assertEquals(1, storage.liAborted.size());
+		Assert.assertTrue(storage.mapUploads.isEmpty());
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Inner classes
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * The <code>ObjectStorage</code> is a minimal, in-memory implementation of the multipart upload
+	 * REST API of S3 compatible object storages.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class ObjectStorage implements HttpHandler
+	{
+		/** the uploaded parts per upload id. */
+		private Map<String, TreeMap<Integer, byte[]>> mapUploads = new HashMap<String, TreeMap<Integer, byte[]>>();
+
+		/** the completed objects. */
+		private Map<String, byte[]> mapObjects = new HashMap<String, byte[]>();
+
+		/** the number of failures per part number. */
+		private Map<Integer, AtomicInteger> mapFailures = new HashMap<Integer, AtomicInteger>();
+
+		/** the aborted upload ids. */
+		private List<String> liAborted = new ArrayList<String>();
+
+		/** the upload counter. */
+		private AtomicInteger iUploads = new AtomicInteger();
+
+		/** the number of uploaded parts. */
+		private AtomicInteger iParts = new AtomicInteger();
+
+		/** the number of parts in flight. */
+		private AtomicInteger iInFlight = new AtomicInteger();
+
+		/** the maximum number of parts in flight. */
+		private AtomicInteger iMaxInFlight = new AtomicInteger();
+
+		/** the delay of every part upload. */
+		private volatile int iDelay;
+
+		/**
+		 * Lets the upload of a part fail.
+		 *
+		 * @param pPartNumber the part number
+		 * @param pCount the number of failures
+		 */
+		private void failPart(int pPartNumber, int pCount)
+		{
+			mapFailures.put(Integer.valueOf(pPartNumber), new AtomicInteger(pCount));
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public void handle(HttpExchange pExchange) throws IOException
+		{
+			try
+			{
+				String sMethod = pExchange.getRequestMethod();
+				String sPath = pExchange.getRequestURI().getPath();
+
+				Map<String, String> mapQuery = parseQuery(pExchange.getRequestURI().getQuery());
+
+				byte[] byBody = FileUtil.getContent(pExchange.getRequestBody(), true);
+
+				String sUploadId = mapQuery.get("uploadId");
+
+				if ("POST".equals(sMethod) && mapQuery.containsKey("uploads"))
+				{
+					sUploadId = "upload-" + iUploads.incrementAndGet();
+
+					synchronized (this)
+					{
+						mapUploads.put(sUploadId, new TreeMap<Integer, byte[]>());
+					}
+
+					send(pExchange, 200, "<InitiateMultipartUploadResult><UploadId>" + sUploadId + "</UploadId></InitiateMultipartUploadResult>");
+				}
+				else if ("PUT".equals(sMethod) && sUploadId != null)
+				{
+					uploadPart(pExchange, sUploadId, Integer.valueOf(mapQuery.get("partNumber")), byBody);
+				}
+				else if ("POST".equals(sMethod) && sUploadId != null)
+				{
+					complete(pExchange, sPath, sUploadId, new String(byBody, "UTF-8"));
+				}
+				else if ("DELETE".equals(sMethod) && sUploadId != null)
+				{
+					synchronized (this)
+					{
+						mapUploads.remove(sUploadId);
+						liAborted.add(sUploadId);
+					}
+
+					send(pExchange, 204, null);
+				}
+				else
+				{
+					send(pExchange, 400, "<Error><Code>InvalidRequest</Code></Error>");
+				}
+			}
+			catch (Exception ex)
+			{
+				send(pExchange, 500, "<Error><Code>InternalError</Code><Message>" + ex + "</Message></Error>");
+			}
+		}
+
+		/**
+		 * Stores a part.
+		 *
+		 * @param pExchange the exchange
+		 * @param pUploadId the upload id
+		 * @param pPartNumber the part number
+		 * @param pData the part data
+		 * @throws Exception if storing fails
+		 */
+		private void uploadPart(HttpExchange pExchange, String pUploadId, Integer pPartNumber, byte[] pData) throws Exception
+		{
+			int iCount = iInFlight.incrementAndGet();
+
+			try
+			{
+				synchronized (iMaxInFlight)
+				{
+					iMaxInFlight.set(Math.max(iMaxInFlight.get(), iCount));
+				}
+
+				Thread.sleep(iDelay);
+
+				AtomicInteger aiFailures;
+
+				synchronized (this)
+				{
+					aiFailures = mapFailures.get(pPartNumber);
+				}
+
+				if (aiFailures != null && aiFailures.getAndDecrement() > 0)
+				{
+					send(pExchange, 500, "<Error><Code>InternalError</Code></Error>");
+
+					return;
+				}
+
+				synchronized (this)
+				{
+					TreeMap<Integer, byte[]> mapParts = mapUploads.get(pUploadId);
+
+					if (mapParts == null)
+					{
+						send(pExchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+
+						return;
+					}
+
+					mapParts.put(pPartNumber, pData);
+				}
+
+				iParts.incrementAndGet();
+
+				pExchange.getResponseHeaders().set("ETag", getTag(pData));
+
+				send(pExchange, 200, null);
+			}
+			finally
+			{
+				iInFlight.decrementAndGet();
+			}
+		}
+
+		/**
+		 * Completes an upload and checks the tags of all parts.
+		 *
+		 * @param pExchange the exchange
+		 * @param pPath the object path
+		 * @param pUploadId the upload id
+		 * @param pXml the part list
+		 * @throws Exception if completing fails
+		 */
+		private void complete(HttpExchange pExchange, String pPath, String pUploadId, String pXml) throws Exception
+		{
+			TreeMap<Integer, byte[]> mapParts;
+
+			synchronized (this)
+			{
+				mapParts = mapUploads.remove(pUploadId);
+			}
+
+			if (mapParts == null)
+			{
+				send(pExchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+
+				return;
+			}
+
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+			int iNumber = 1;
+
+			for (Map.Entry<Integer, byte[]> entry : mapParts.entrySet())
+			{
+				String sPart = "<Part><PartNumber>" + iNumber + "</PartNumber><ETag>" + getTag(entry.getValue()) + "</ETag></Part>";
+
+				if (entry.getKey().intValue() != iNumber || pXml.indexOf(sPart) < 0)
+				{
+					//errors of complete requests are sent with status 200
+					send(pExchange, 200, "<Error><Code>InvalidPart</Code></Error>");
+
+					return;
+				}
+
+				baos.write(entry.getValue());
+
+				iNumber++;
+			}
+
+			synchronized (this)
+			{
+				mapObjects.put(pPath, baos.toByteArray());
+			}
+
+			send(pExchange, 200, "<CompleteMultipartUploadResult><Key>" + pPath + "</Key></CompleteMultipartUploadResult>");
+		}
+
+		/**
+		 * Gets the tag of a part.
+		 *
+		 * @param pData the part data
+		 * @return the quoted md5 hash
+		 * @throws Exception if hashing fails
+		 */
+		private static String getTag(byte[] pData) throws Exception
+		{
+			StringBuilder sbTag = new StringBuilder("\"");
+
+			for (byte by : MessageDigest.getInstance("MD5").digest(pData))
+			{
+				sbTag.append(String.format("%02x", Integer.valueOf(by & 0xFF)));
+			}
+
+			return sbTag.append("\"").toString();
+		}
+
+		/**
+		 * Parses a query.
+		 *
+		 * @param pQuery the query
+		 * @return the parameters
+		 */
+		private static Map<String, String> parseQuery(String pQuery)
+		{
+			Map<String, String> mapQuery = new HashMap<String, String>();
+
+			if (pQuery != null)
+			{
+				int iPos;
+
+				for (String sParam : pQuery.split("&"))
+				{
+					iPos = sParam.indexOf('=');
+
+					if (iPos < 0)
+					{
+						mapQuery.put(sParam, "");
+					}
+					else
+					{
+						mapQuery.put(sParam.substring(0, iPos), sParam.substring(iPos + 1));
+					}
+				}
+			}
+
+			return mapQuery;
+		}
+
+		/**
+		 * Sends a response.
+		 *
+		 * @param pExchange the exchange
+		 * @param pCode the status code
+		 * @param pBody the response body or <code>null</code>
+		 * @throws IOException if sending fails
+		 */
+		private static void send(HttpExchange pExchange, int pCode, String pBody) throws IOException
+		{
+			if (pBody == null)
+			{
+				pExchange.sendResponseHeaders(pCode, -1);
+			}
+			else
+			{
+				byte[] byBody = pBody.getBytes("UTF-8");
+
+				pExchange.sendResponseHeaders(pCode, byBody.length);
+
+				OutputStream out = pExchange.getResponseBody();
+				out.write(byBody);
+				out.close();
+			}
+
+			pExchange.close();
+		}
+
+	}	// ObjectStorage
+
+}	// MultipartUploadTest
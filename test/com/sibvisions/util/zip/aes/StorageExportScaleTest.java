@@ -0,0 +1,547 @@
+/*
+ * History
+ *
+ * 19.10.2026 - [JR] - creation
+ *                   - cursor option
+ *                   - encryption threads option
+ *                   - opt-in, sampled live heap
+ *                   - heap usage of memory pools, log measurements
+ *                   - encryption thread scaling
+ */
+package com.sibvisions.util.zip.aes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sibvisions.util.log.ILogger;
+import com.sibvisions.util.log.LoggerFactory;
+
+/**
+ * Scale and soak tests for <code>StorageExport</code>. The tests export records of a
+ * {@link GeneratorStorage} with increasing sizes, concurrency levels and encryption threads and
+ * record the throughput, the time to first byte, the gc time and the peak heap usage. The peak heap usage is
+ * read from the memory pools, without forcing gcs: the peak usage of the tenured pools, which hold
+ * the long living objects of the exports, plus the usage of the young pools after the last gc. The
+ * usage of the eden space is mostly garbage and isn't part of the peak heap usage.
+ * <p>
+ * The tests are long running and only run with <code>-Dscale=true</code>. The sizes and thresholds
+ * are configurable with system properties:
+ * <ul>
+ *   <li><code>scale.rows</code> - comma separated record counts, default <code>10000,100000,1000000</code></li>
+ *   <li><code>scale.threads</code> - comma separated concurrency levels, default <code>1,2,4</code></li>
+ *   <li><code>scale.threads.rows</code> - record count per thread for concurrency tests, default <code>100000</code></li>
+ *   <li><code>scale.width</code> - number of column groups (number, text, timestamp), default <code>2</code></li>
+ *   <li><code>scale.valueLength</code> - length of text values, default <code>24</code></li>
+ *   <li><code>scale.cursor</code> - whether records are read with a cursor or page by page, default <code>true</code></li>
+ *   <li><code>scale.encryptionThreads</code> - number of threads for AES encryption, default <code>1</code></li>
+ *   <li><code>scale.encryptionThreads.max</code> - maximum number of encryption threads for the encryption
+ *       scaling test, default <code>4</code></li>
+ *   <li><code>scale.encryptionThreads.rows</code> - record count for the encryption scaling test, default
+ *       <code>500000</code></li>
+ *   <li><code>scale.minEncryptionSpeedup</code> - minimum throughput with the maximum number of encryption
+ *       threads, in percent of the throughput with one thread, default <code>90</code></li>
+ *   <li><code>scale.minRowsPerSecond</code> - minimum throughput, default <code>10000</code></li>
+ *   <li><code>scale.maxFirstByteMillis</code> - maximum time to first byte, default <code>5000</code></li>
+ *   <li><code>scale.maxHeapMB</code> - maximum peak heap usage, default <code>512</code></li>
+ *   <li><code>scale.maxGcPercent</code> - maximum gc time in percent of the run time, default <code>50</code></li>
+ * </ul>
+ * A soak run with tens of millions of records: <code>-Dscale.rows=10000000,50000000</code>.
+ * The measurements are logged with level info.
+ *
+ * @author Ren Jahn
+ */
+public class StorageExportScaleTest
+{
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Class members
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/** the logger. */
+	private static ILogger logger = LoggerFactory.getInstance(StorageExportScaleTest.class);
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Initialization
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Skips the tests if they weren't enabled with <code>-Dscale=true</code>.
+	 */
+	@Before
+	public void beforeTest()
+	{
+		Assume.assumeTrue(Boolean.getBoolean("scale"));
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// User-defined methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Gets an integer list from a system property.
+	 *
+	 * @param pName the property name
+	 * @param pDefault the default value
+	 * @return the values
+	 */
+	private static int[] getInts(String pName, String pDefault)
+	{
+		String[] sValues = System.getProperty(pName, pDefault).split(",");
+
+		int[] iValues = new int[sValues.length];
+
+		for (int i = 0; i < sValues.length; i++)
+		{
+			iValues[i] = Integer.parseInt(sValues[i].trim());
+		}
+
+		return iValues;
+	}
+
+	/**
+	 * Gets a number from a system property.
+	 *
+	 * @param pName the property name
+	 * @param pDefault the default value
+	 * @return the value
+	 */
+	private static long getLong(String pName, long pDefault)
+	{
+		String sValue = System.getProperty(pName);
+
+		if (sValue == null)
+		{
+			return pDefault;
+		}
+
+		return Long.parseLong(sValue.trim());
+	}
+
+	/**
+	 * Gets the sum of the collection time of all garbage collectors.
+	 *
+	 * @return the gc time in milliseconds
+	 */
+	private static long getGcTime()
+	{
+		long lTime = 0;
+
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+		{
+			lTime += Math.max(0, gc.getCollectionTime());
+		}
+
+		return lTime;
+	}
+
+	/**
+	 * Resets the peak usage of all heap pools.
+	 */
+	private static void resetPeakHeap()
+	{
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+		{
+			if (pool.getType() == MemoryType.HEAP)
+			{
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	/**
+	 * Gets the peak heap usage since the last {@link #resetPeakHeap()}. The peak usage of tenured
+	 * pools is used. The young pools are counted with their usage after the last gc, because
+	 * their peak usage is mostly garbage.
+	 *
+	 * @return the peak heap usage in bytes
+	 */
+	private static long getPeakHeap()
+	{
+		long lPeak = 0;
+
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+		{
+			if (pool.getType() == MemoryType.HEAP)
+			{
+				MemoryUsage usage;
+
+				//only tenured pools support usage thresholds
+				if (pool.isUsageThresholdSupported())
+				{
+					usage = pool.getPeakUsage();
+				}
+				else
+				{
+					usage = pool.getCollectionUsage();
+				}
+
+				if (usage != null)
+				{
+					lPeak += usage.getUsed();
+				}
+			}
+		}
+
+		return lPeak;
+	}
+
+	/**
+	 * Exports a few records without measurement, to warm up the jit compiler.
+	 *
+	 * @throws Exception if the export fails
+	 */
+	private static void warmUp() throws Exception
+	{
+		StorageExport export = new StorageExport();
+		export.add(new StorageEntry("warmup.csv", GeneratorStorage.create(20000, 2, 24)));
+		export.setPassword("warmup");
+
+		export.export(new MeasureOutputStream(new Measurement()));
+	}
+
+	/**
+	 * Runs the exports and measures them.
+	 *
+	 * @param pRows the number of records per export
+	 * @param pThreads the number of concurrent exports
+	 * @return the measurement
+	 * @throws Exception if an export fails
+	 */
+	private Measurement run(int pRows, int pThreads) throws Exception
+	{
+		return run(pRows, pThreads, (int)getLong("scale.encryptionThreads", 1));
+	}
+
+	/**
+	 * Runs the exports with a number of encryption threads and measures them.
+	 *
+	 * @param pRows the number of records per export
+	 * @param pThreads the number of concurrent exports
+	 * @param pEncryptionThreads the number of encryption threads per export
+	 * @return the measurement
+	 * @throws Exception if an export fails
+	 */
+	private Measurement run(final int pRows, int pThreads, final int pEncryptionThreads) throws Exception
+	{
+		final int iWidth = (int)getLong("scale.width", 2);
+		final int iValueLength = (int)getLong("scale.valueLength", 24);
+		final boolean bCursor = Boolean.parseBoolean(System.getProperty("scale.cursor", "true"));
+
+		System.gc();
+
+		final Measurement measure = new Measurement();
+		measure.rows = pRows;
+		measure.threads = pThreads;
+		measure.encryptionThreads = pEncryptionThreads;
+
+		final List<Throwable> liErrors = new ArrayList<Throwable>();
+
+		long lGcStart = getGcTime();
+
+		resetPeakHeap();
+
+		measure.start = System.nanoTime();
+
+		Thread[] threads = new Thread[pThreads];
+
+		for (int i = 0; i < pThreads; i++)
+		{
+			threads[i] = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					try
+					{
+						GeneratorStorage storage = GeneratorStorage.create(pRows, iWidth, iValueLength);
+						storage.setCursorEnabled(bCursor);
+
+						StorageExport export = new StorageExport();
+						export.add(new StorageEntry("scale.csv", storage));
+						export.setPassword("scale");
+						export.setEncryptionThreads(pEncryptionThreads);
+
+						export.export(new MeasureOutputStream(measure));
+					}
+					catch (Throwable th)
+					{
+						synchronized (liErrors)
+						{
+							liErrors.add(th);
+						}
+					}
+				}
+			}, "Export " + i);
+
+			threads[i].start();
+		}
+
+		for (int i = 0; i < pThreads; i++)
+		{
+			threads[i].join();
+		}
+
+		measure.millis = Math.max(1, (System.nanoTime() - measure.start) / 1000000);
+		measure.peakHeap = getPeakHeap();
+		measure.gcMillis = getGcTime() - lGcStart;
+
+		if (!liErrors.isEmpty())
+		{
+			throw new Exception("Export failed!", liErrors.get(0));
+		}
+
+		logger.info(measure);
+
+		return measure;
+	}
+
+	/**
+	 * Checks the thresholds.
+	 *
+	 * @param pMeasurements the measurements
+	 */
+	private void check(List<Measurement> pMeasurements)
+	{
+		long lMinRowsPerSecond = getLong("scale.minRowsPerSecond", 10000);
+		long lMaxFirstByte = getLong("scale.maxFirstByteMillis", 5000);
+		long lMaxHeap = getLong("scale.maxHeapMB", 512) * 1024 * 1024;
+		long lMaxGcPercent = getLong("scale.maxGcPercent", 50);
+
+		StringBuilder sbErrors = new StringBuilder();
+
+		for (Measurement measure : pMeasurements)
+		{
+			if (measure.getRowsPerSecond() < lMinRowsPerSecond)
+			{
+				sbErrors.append("\n" + measure + ": throughput < " + lMinRowsPerSecond + " rows/s");
+			}
+
+			if (measure.getFirstByteMillis() > lMaxFirstByte)
+			{
+				sbErrors.append("\n" + measure + ": time to first byte > " + lMaxFirstByte + " ms");
+			}
+
+			if (measure.peakHeap > lMaxHeap)
+			{
+				sbErrors.append("\n" + measure + ": peak heap > " + (lMaxHeap / 1024 / 1024) + " MB");
+			}
+
+			if (measure.gcMillis * 100 > measure.millis * lMaxGcPercent)
+			{
+				sbErrors.append("\n" + measure + ": gc time > " + lMaxGcPercent + "%");
+			}
+		}
+
+		if (sbErrors.length() > 0)
+		{
+			Assert.fail("Thresholds exceeded:" + sbErrors);
+		}
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Test methods
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * Tests single exports with increasing record counts.
+	 */
+	@Test
+	public void exportIncreasingSizes() throws Exception
+	{
+		warmUp();
+
+		List<Measurement> liMeasurements = new ArrayList<Measurement>();
+
+		for (int iRows : getInts("scale.rows", "10000,100000,1000000"))
+		{
+			liMeasurements.add(run(iRows, 1));
+		}
+
+		check(liMeasurements);
+	}
+
+	/**
+	 * Tests concurrent exports with increasing concurrency levels.
+	 */
+	@Test
+	public void exportConcurrent() throws Exception
+	{
+		warmUp();
+
+		int iRows = (int)getLong("scale.threads.rows", 100000);
+
+		List<Measurement> liMeasurements = new ArrayList<Measurement>();
+
+		for (int iThreads : getInts("scale.threads", "1,2,4"))
+		{
+			liMeasurements.add(run(iRows, iThreads));
+		}
+
+		check(liMeasurements);
+	}
+
+	/**
+	 * Tests single exports with increasing numbers of encryption threads. Deflate and HMAC run serially,
+	 * so the throughput doesn't grow linearly, but more threads must not make the export slower than
+	 * the configured percentage of the throughput with one thread.
+	 */
+	@Test
+	public void exportEncryptionThreads() throws Exception
+	{
+		warmUp();
+
+		int iRows = (int)getLong("scale.encryptionThreads.rows", 500000);
+		int iMaxThreads = (int)getLong("scale.encryptionThreads.max", 4);
+		long lMinSpeedup = getLong("scale.minEncryptionSpeedup", 90);
+
+		List<Measurement> liMeasurements = new ArrayList<Measurement>();
+
+		for (int i = 1; i <= iMaxThreads; i++)
+		{
+			liMeasurements.add(run(iRows, 1, i));
+		}
+
+		check(liMeasurements);
+
+		Measurement measureSingle = liMeasurements.get(0);
+		Measurement measureMax = liMeasurements.get(liMeasurements.size() - 1);
+
+		if (measureMax.getRowsPerSecond() * 100 < measureSingle.getRowsPerSecond() * lMinSpeedup)
+		{
+			Assert.fail("Throughput with " + iMaxThreads + " encryption threads < " + lMinSpeedup + "% of one thread:\n"
+					    + measureSingle + "\n" + measureMax);
+		}
+	}
+
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+	// Inner classes
+	//~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+
+	/**
+	 * The <code>Measurement</code> contains the results of one run.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class Measurement
+	{
+		/** the number of records per export. */
+		private int rows;
+
+		/** the number of concurrent exports. */
+		private int threads;
+
+		/** the number of encryption threads per export. */
+		private int encryptionThreads = 1;
+
+		/** the start time in nanoseconds. */
+		private long start;
+
+		/** the time of the first written byte in nanoseconds. */
+		private long firstByte = -1;
+
+		/** the number of written bytes. */
+		private long bytes;
+
+		/** the run time in milliseconds. */
+		private long millis;
+
+		/** the gc time in milliseconds. */
+		private long gcMillis;
+
+		/** the peak heap usage in bytes. */
+		private long peakHeap;
+
+		/**
+		 * Gets the number of records per second, for all exports.
+		 *
+		 * @return the throughput
+		 */
+		private long getRowsPerSecond()
+		{
+			return (long)rows * threads * 1000 / millis;
+		}
+
+		/**
+		 * Gets the time until the first byte was written.
+		 *
+		 * @return the time in milliseconds
+		 */
+		private long getFirstByteMillis()
+		{
+			return firstByte < 0 ? millis : (firstByte - start) / 1000000;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String toString()
+		{
+			return "rows = " + rows + ", threads = " + threads + ", encryption threads = " + encryptionThreads
+				   + ", time = " + millis + " ms, "
+				   + getRowsPerSecond() + " rows/s, " + (bytes * 1000 / millis / 1024) + " KB/s, first byte = "
+				   + getFirstByteMillis() + " ms, gc = " + gcMillis + " ms, peak heap = " + (peakHeap / 1024 / 1024) + " MB";
+		}
+
+	}	// Measurement
+
+	/**
+	 * The <code>MeasureOutputStream</code> discards all bytes and records the written bytes
+	 * and the time of the first byte.
+	 *
+	 * @author Ren Jahn
+	 */
+	private static final class MeasureOutputStream extends OutputStream
+	{
+		/** the measurement. */
+		private Measurement measure;
+
+		/**
+		 * Creates a new <code>MeasureOutputStream</code>.
+		 *
+		 * @param pMeasure the measurement
+		 */
+		private MeasureOutputStream(Measurement pMeasure)
+		{
+			measure = pMeasure;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void write(int pByte) throws IOException
+		{
+			write(new byte[] {(byte)pByte}, 0, 1);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void write(byte[] pData, int pOffset, int pLength) throws IOException
+		{
+			synchronized (measure)
+			{
+				if (measure.firstByte < 0)
+				{
+					measure.firstByte = System.nanoTime();
+				}
+
+				measure.bytes += pLength;
+			}
+		}
+
+	}	// MeasureOutputStream
+
+}	// StorageExportScaleTest
@@ -2,12 +2,40 @@
  * History
  * 
  * 27.08.2013 - [JR] - creation
+ * 19.10.2026 - [JR] - sort mode Export
+ *                   - adaptive compression
+ *                   - LOBs as entries
+ *                   - fan-out export
+ *                   - cursor storage
+ *                   - parallel encryption
+ *                   - column statistics, block index
+ *                   - encryption with target parameters
+ *                   - sort merge passes
+ *                   - statistics of mixed types
+ *                   - streamed LOBs
+ *                   - sorted LOBs, sort memory limit
+ *                   - adaptive archives as stream, LOB reports
  */
 package com.sibvisions.util.zip.aes;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
+import net.lingala.zip4j.core.ZipFile;
+import net.lingala.zip4j.model.FileHeader;
+import net.lingala.zip4j.model.ZipParameters;
+import net.lingala.zip4j.util.Zip4jConstants;
+
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.sibvisions.rad.model.mem.MemDataBook;
@@ -15,18 +43,26 @@ import com.sibvisions.rad.persist.AbstractMemStorage;
 import com.sibvisions.rad.persist.AbstractStorage;
 import com.sibvisions.util.type.DateUtil;
 import com.sibvisions.util.type.FileUtil;
+import com.sibvisions.util.zip.aes.GeneratorStorage.ColumnType;
+import com.sibvisions.util.zip.aes.StorageEntry.SortMode;
 
 import jvx.rad.io.RemoteFileHandle;
 import jvx.rad.model.ColumnDefinition;
 import jvx.rad.model.ColumnView;
 import jvx.rad.model.ModelException;
 import jvx.rad.model.RowDefinition;
+import jvx.rad.model.SortDefinition;
+import jvx.rad.model.condition.Equals;
 import jvx.rad.model.condition.GreaterEquals;
 import jvx.rad.model.condition.ICondition;
 import jvx.rad.model.condition.LessEquals;
 import jvx.rad.model.datatype.BigDecimalDataType;
+import jvx.rad.model.datatype.BinaryDataType;
 import jvx.rad.model.datatype.TimestampDataType;
 import jvx.rad.model.event.DataBookEvent;
+import jvx.rad.persist.ColumnMetaData;
+import jvx.rad.persist.DataSourceException;
+import jvx.rad.persist.MetaData;
 
 /**
  * Tests the functionality of <code>StorageExportTest</code>
@@ -159,6 +195,215 @@ public class StorageExportTest
 		return amsColList;
 	}
 	
+	/**
+	 * Creates a new storage with binary data. Every third record has no data.
+	 * 
+	 * @return the storage
+	 * @throws ModelException if creation fails
+	 */
+	private AbstractStorage createLobStorage() throws ModelException
+	{
+		AbstractMemStorage amsLobs = new AbstractMemStorage()
+		{
+			@Override
+			public RowDefinition getRowDefinition() throws ModelException
+			{
+				RowDefinition rowdef = new RowDefinition();
+				rowdef.addColumnDefinition(new ColumnDefinition("ID", new BigDecimalDataType()));
+				rowdef.addColumnDefinition(new ColumnDefinition("DATA", new BinaryDataType()));
+				
+				rowdef.setColumnView(null, new ColumnView("ID", "DATA"));
+				
+				rowdef.setPrimaryKeyColumnNames(new String[] {"ID"});
+				
+				return rowdef;
+			}
+			
+			@Override
+			public void update(DataBookEvent pEvent) throws ModelException
+			{
+			}
+			
+			@Override
+			public void loadData(MemDataBook pBook, ICondition pFilter) throws ModelException
+			{
+				pBook.setFilter(pFilter);
+			}
+			
+			@Override
+			public void insert(DataBookEvent pEvent) throws ModelException
+			{
+			}
+			
+			@Override
+			public void delete(DataBookEvent pEvent) throws ModelException
+			{
+			}
+		};
+
+		amsLobs.open();
+
+		byte[] byData;
+		
+		for (int i = 1; i <= 10; i++)
+		{
+			if (i % 3 == 0)
+			{
+				byData = null;
+			}
+			else
+			{
+				byData = new byte[i * 10000];
+				
+				for (int j = 0; j < byData.length; j++)
+				{
+					byData[j] = (byte)(j * i);
+				}
+			}
+			
+			amsLobs.getDataBook().insert(false);
+			amsLobs.getDataBook().setValues(new String[] {"ID", "DATA"}, new Object[] {BigDecimal.valueOf(i), byData});
+		}
+		
+		amsLobs.getDataBook().saveAllRows();
+		
+		return amsLobs;
+	}
+	
+	/**
+	 * Exports the given entries to a temporary archive.
+	 * 
+	 * @param pExport the export
+	 * @param pFileName the archive file name
+	 * @return the archive file
+	 * @throws Exception if export fails
+	 */
+	private File export(StorageExport pExport, String pFileName) throws Exception
+	{
+		File fiTemp = new File(System.getProperty("java.io.tmpdir"), pFileName);
+		
+		RemoteFileHandle rfh = new RemoteFileHandle();
+		pExport.export(rfh.getOutputStream());
+		
+		FileUtil.save(fiTemp, rfh.getInputStream());
+		
+		return fiTemp;
+	}
+	
+	/**
+	 * Reads the content of an archive entry.
+	 * 
+	 * @param pArchive the archive
+	 * @param pPassword the password
+	 * @param pEntryName the entry name
+	 * @return the entry content
+	 * @throws Exception if reading fails
+	 */
+	private String readEntry(File pArchive, String pPassword, String pEntryName) throws Exception
+	{
+		return new String(readEntryBytes(pArchive, pPassword, pEntryName), "UTF-8");
+	}
+	
+	/**
+	 * Reads the content of an archive entry.
+	 * 
+	 * @param pArchive the archive
+	 * @param pPassword the password
+	 * @param pEntryName the entry name
+	 * @return the entry content
+	 * @throws Exception if reading fails
+	 */
+	private byte[] readEntryBytes(File pArchive, String pPassword, String pEntryName) throws Exception
+	{
+		ZipFile zip = new ZipFile(pArchive);
+		
+		if (pPassword != null)
+		{
+			zip.setPassword(pPassword);
+		}
+		
+		InputStream in = zip.getInputStream(zip.getFileHeader(pEntryName));
+		
+		try
+		{
+			return FileUtil.getContent(in, false);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Checks that every block of an entry can be decompressed independently and contains the records
+	 * of the index. The archive must not be encrypted.
+	 * 
+	 * @param pArchive the archive
+	 * @param pEntryName the entry name
+	 * @param pRowCount the number of records
+	 * @param pBlockSize the number of records per block
+	 * @throws Exception if reading fails
+	 */
+	private void checkBlocks(File pArchive, String pEntryName, int pRowCount, int pBlockSize) throws Exception
+	{
+		String[] sIndex = readEntry(pArchive, null, pEntryName + "_index.csv").split("\n");
+		
+		Assert.assertEquals("BLOCK;FIRST_ROW;ROW_COUNT;MIN_KEY;MAX_KEY;OFFSET;LENGTH;COMPRESSED_OFFSET", sIndex[0]);
+		Assert.assertEquals((pRowCount + pBlockSize - 1) / pBlockSize, sIndex.length - 1);
+		
+		byte[] byData = readEntryBytes(pArchive, null, pEntryName);
+		byte[] byArchive = FileUtil.getContent(new FileInputStream(pArchive), true);
+
+		FileHeader header = new ZipFile(pArchive).getFileHeader(pEntryName);
+		
+		int iHeader = (int)header.getOffsetLocalHeader();
+		int iDataStart = iHeader + 30 + (byArchive[iHeader + 26] & 0xFF) + ((byArchive[iHeader + 27] & 0xFF) << 8) 
+				                      + (byArchive[iHeader + 28] & 0xFF) + ((byArchive[iHeader + 29] & 0xFF) << 8);
+		
+		String[] sBlock;
+		
+		int iOffset;
+		int iLength;
+		int iCompressedOffset;
+		
+		for (int i = 1; i < sIndex.length; i++)
+		{
+			sBlock = sIndex[i].split(";");
+			
+			Assert.assertEquals(i - 1, Integer.parseInt(sBlock[0]));
+			Assert.assertEquals((i - 1) * pBlockSize, Integer.parseInt(sBlock[1]));
+			Assert.assertEquals(Math.min(pBlockSize, pRowCount - (i - 1) * pBlockSize), Integer.parseInt(sBlock[2]));
+			Assert.assertEquals((i - 1) * pBlockSize + 1, Integer.parseInt(sBlock[3]));
+			Assert.assertEquals((i - 1) * pBlockSize + Integer.parseInt(sBlock[2]), Integer.parseInt(sBlock[4]));
+			
+			iOffset = Integer.parseInt(sBlock[5]);
+			iLength = Integer.parseInt(sBlock[6]);
+			iCompressedOffset = Integer.parseInt(sBlock[7]);
+			
+			byte[] byBlock = new byte[iLength];
+			
+			if (header.getCompressionMethod() == Zip4jConstants.COMP_DEFLATE)
+			{
+				Inflater inflater = new Inflater(true);
+				inflater.setInput(byArchive, iDataStart + iCompressedOffset, (int)header.getCompressedSize() - iCompressedOffset);
+				
+				Assert.assertEquals(iLength, inflater.inflate(byBlock));
+				
+				inflater.end();
+			}
+			else
+			{
+				System.arraycopy(byArchive, iDataStart + iCompressedOffset, byBlock, 0, iLength);
+			}
+			
+			String sRows = new String(byBlock, "UTF-8");
+			
+			Assert.assertEquals(new String(byData, iOffset, iLength, "UTF-8"), sRows);
+			Assert.assertTrue(sRows.startsWith(sBlock[3] + ";"));
+			Assert.assertEquals(Integer.parseInt(sBlock[2]), sRows.split("\n").length);
+		}
+	}
+	
     //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
     // Test methods
     //~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -197,4 +442,684 @@ public class StorageExportTest
 		System.out.println(fiTemp);
 	}
 	
+	/**
+	 * Tests sorting with sort mode {@link SortMode#Export}, with more records than the sort buffer size.
+	 */
+	@Test
+	public void createArchiveSortedByExport() throws Exception
+	{
+		SortDefinition sort = new SortDefinition(new String[] {"VALUE", "ID"}, new boolean[] {false, true});
+		
+		StorageEntry entryStorage = new StorageEntry("storage.csv", createStorage(), null, sort);
+		
+		StorageEntry entryExport = new StorageEntry("export.csv", createStorage(), null, sort);
+		entryExport.setSortMode(SortMode.Export);
+
+		StorageExport export = new StorageExport();
+		export.add(entryStorage);
+		export.add(entryExport);
+		export.setPassword("testcase");
+		export.setSortBufferSize(7);
+		
+		File fiArchive = export(export, "aesarchive_sorted.zip");
+		
+		String sStorage = readEntry(fiArchive, "testcase", "storage.csv");
+		
+		Assert.assertEquals(100, sStorage.split("\n").length);
+		Assert.assertEquals(sStorage, readEntry(fiArchive, "testcase", "export.csv"));
+		
+		//more runs than merged at once
+		entryExport = new StorageEntry("export.csv", createStorage(), null, sort);
+		entryExport.setSortMode(SortMode.Export);
+		
+		export = new StorageExport();
+		export.add(entryExport);
+		export.setPassword("testcase");
+		export.setSortBufferSize(1);
+		
+		fiArchive = export(export, "aesarchive_sorted_passes.zip");
+		
+		Assert.assertTrue(100 > ExternalSort.MAX_FAN_IN);
+		Assert.assertEquals(sStorage, readEntry(fiArchive, "testcase", "export.csv"));
+	}
+	
+	/**
+	 * Tests sorting records with streamed LOB values with temporary files.
+	 */
+	@Test
+	public void createArchiveSortedLobs() throws Exception
+	{
+		SortDefinition sort = new SortDefinition(new String[] {"COL1"}, new boolean[] {false});
+		
+		StorageEntry entry = new StorageEntry("sorted.csv", new GeneratorStorage(30, 5000, ColumnType.Number, ColumnType.BinaryStream, ColumnType.TextStream), null, sort);
+		entry.setSortMode(SortMode.Export);
+		entry.setLobsAsEntries(true);
+		entry.setLobColumnNames("COL2", "COL3");
+		
+		StorageExport export = new StorageExport();
+		export.add(entry);
+		export.setPassword("testcase");
+		export.setSortBufferSize(10);
+		
+		File fiArchive = export(export, "aesarchive_sorted_lobs.zip");
+		
+		String[] sLines = readEntry(fiArchive, "testcase", "sorted.csv").split("\n");
+		
+		Assert.assertEquals(30, sLines.length);
+		
+		GeneratorStorage storageValues = new GeneratorStorage(30, 5000, ColumnType.Number, ColumnType.Binary, ColumnType.Text);
+		
+		Object[] oExpected;
+		
+		BigDecimal bdLast = null;
+		
+		for (int i = 1; i <= 30; i++)
+		{
+			oExpected = storageValues.createRow(Integer.parseInt(sLines[i - 1].substring(0, sLines[i - 1].indexOf(';'))) - 1, new Object[4]);
+			
+			if (bdLast != null)
+			{
+				Assert.assertTrue(bdLast.compareTo((BigDecimal)oExpected[1]) >= 0);
+			}
+			
+			bdLast = (BigDecimal)oExpected[1];
+			
+			Assert.assertArrayEquals((byte[])oExpected[2], readEntryBytes(fiArchive, "testcase", "sorted.csv_lob/COL2/" + i));
+			Assert.assertEquals(oExpected[3], readEntry(fiArchive, "testcase", "sorted.csv_lob/COL3/" + i));
+		}
+	}
+	
+	/**
+	 * Tests the memory limit of the sort buffer.
+	 */
+	@Test
+	public void sortMemoryLimit() throws Exception
+	{
+		GeneratorStorage storage = new GeneratorStorage(100, 1000, ColumnType.Text);
+		
+		long lRowSize = ExternalSort.estimateSize(storage.createRow(0, new Object[2]));
+		
+		Assert.assertTrue(lRowSize > 2000);
+		
+		ExternalSort sorter = new ExternalSort(storage.getMetaData(), new SortDefinition("COL1"), 100000, lRowSize * 10, null);
+		
+		try
+		{
+			for (int i = 0; i < 100; i++)
+			{
+				sorter.add(storage.createRow(i, new Object[2]));
+			}
+			
+			sorter.finish();
+			
+			Assert.assertEquals(10, sorter.getRunCount());
+			
+			String sLast = "";
+			String sValue;
+			
+			Object[] oRow;
+			
+			int iCount = 0;
+			
+			while ((oRow = sorter.next()) != null)
+			{
+				sValue = (String)oRow[1];
+				
+				Assert.assertTrue(sLast.compareTo(sValue) <= 0);
+				
+				sLast = sValue;
+				
+				iCount++;
+			}
+			
+			Assert.assertEquals(100, iCount);
+		}
+		finally
+		{
+			sorter.close();
+		}
+	}
+	
+	/**
+	 * Tests adaptive compression and the compression level of an entry.
+	 */
+	@Test
+	public void createArchiveAdaptiveCompression() throws Exception
+	{
+		StorageEntry entryUltra = new StorageEntry("ultra.csv", createStorage());
+		entryUltra.setCompressionLevel(Zip4jConstants.DEFLATE_LEVEL_ULTRA);
+		
+		StorageExport export = new StorageExport();
+		export.add(new StorageEntry("tiny.csv", createStorage(), new Equals("ID", BigDecimal.valueOf(1))));
+		export.add(new StorageEntry("data.csv", createStorage()));
+		export.add(entryUltra);
+		export.setPassword("testcase");
+		export.setAdaptiveCompression(true);
+		
+		File fiArchive = export(export, "aesarchive_adaptive.zip");
+		
+		EntryReport[] reports = export.getReports();
+		
+		Assert.assertEquals(3, reports.length);
+		
+		//tiny entries are deflated without sample
+		Assert.assertEquals(Zip4jConstants.DEFLATE_LEVEL_FASTEST, reports[0].getCompressionLevel());
+		Assert.assertTrue(reports[0].getSampleRatio() < 0);
+		Assert.assertEquals(1, reports[0].getRowCount());
+		
+		//csv data compresses well
+		Assert.assertTrue(reports[1].getCompressionLevel() >= Zip4jConstants.DEFLATE_LEVEL_FASTEST);
+		Assert.assertTrue(reports[1].getSampleRatio() > 0 && reports[1].getSampleRatio() < 0.5f);
+		Assert.assertEquals(100, reports[1].getRowCount());
+		
+		//fixed level
+		Assert.assertEquals(Zip4jConstants.DEFLATE_LEVEL_ULTRA, reports[2].getCompressionLevel());
+		Assert.assertTrue(reports[2].getSampleRatio() < 0);
+		
+		Assert.assertEquals(readEntry(fiArchive, "testcase", "data.csv"), readEntry(fiArchive, "testcase", "ultra.csv"));
+		Assert.assertTrue(readEntry(fiArchive, "testcase", "tiny.csv").startsWith("1;\"Text (1)\";"));
+		
+		//adaptive archives can be read as stream
+		export.setPassword(null);
+		
+		File fiPlain = export(export, "archive_adaptive.zip");
+		
+		ZipInputStream zis = new ZipInputStream(new FileInputStream(fiPlain));
+		
+		try
+		{
+			ZipEntry zentry;
+			
+			int iCount = 0;
+			
+			while ((zentry = zis.getNextEntry()) != null)
+			{
+				Assert.assertEquals(ZipEntry.DEFLATED, zentry.getMethod());
+				Assert.assertEquals(readEntry(fiPlain, null, zentry.getName()), new String(FileUtil.getContent(zis, false), "UTF-8"));
+				
+				iCount++;
+			}
+			
+			Assert.assertEquals(3, iCount);
+		}
+		finally
+		{
+			zis.close();
+		}
+	}
+	
+	/**
+	 * Tests writing binary columns as separate entries.
+	 */
+	@Test
+	public void createArchiveLobsAsEntries() throws Exception
+	{
+		StorageEntry entry = new StorageEntry("lobs.csv", createLobStorage());
+		entry.setLobsAsEntries(true);
+		
+		StorageExport export = new StorageExport();
+		export.add(entry);
+		export.setPassword("testcase");
+		export.setAdaptiveCompression(true);
+		
+		File fiArchive = export(export, "aesarchive_lobs.zip");
+		
+		String[] sLines = readEntry(fiArchive, "testcase", "lobs.csv").split("\n");
+		
+		Assert.assertEquals(10, sLines.length);
+		
+		String sReference;
+		byte[] byData;
+		
+		for (int i = 1; i <= 10; i++)
+		{
+			sReference = sLines[i - 1].substring(sLines[i - 1].indexOf(';') + 1);
+			
+			if (i % 3 == 0)
+			{
+				Assert.assertEquals("", sReference);
+			}
+			else
+			{
+				Assert.assertEquals("\"lobs.csv_lob/DATA/" + i + "\"", sReference);
+				
+				byData = readEntryBytes(fiArchive, "testcase", "lobs.csv_lob/DATA/" + i);
+				
+				Assert.assertEquals(i * 10000, byData.length);
+				Assert.assertEquals((byte)(9999 * i), byData[9999]);
+			}
+		}
+		
+		EntryReport[] reports = export.getReports();
+		
+		Assert.assertEquals(2, reports.length);
+		Assert.assertEquals("lobs.csv", reports[0].getName());
+		
+		//one report for all LOB entries of the column
+		Assert.assertEquals("lobs.csv_lob/DATA", reports[1].getName());
+		Assert.assertEquals(7, reports[1].getRowCount());
+		Assert.assertEquals((1 + 2 + 4 + 5 + 7 + 8 + 10) * 10000, reports[1].getLength());
+		Assert.assertTrue(reports[1].getCompressionLevel() >= Zip4jConstants.DEFLATE_LEVEL_FASTEST);
+		Assert.assertTrue(reports[1].getSampleRatio() > 0);
+	}
+	
+	/**
+	 * Tests writing large streamed LOB values as separate entries. The text column isn't a binary
+	 * column, so it has to be named.
+	 */
+	@Test
+	public void createArchiveStreamedLobs() throws Exception
+	{
+		int iLength = 3 * 1024 * 1024 + 17;
+		
+		GeneratorStorage storage = new GeneratorStorage(3, iLength, ColumnType.BinaryStream, ColumnType.TextStream);
+		
+		StorageEntry entry = new StorageEntry("streams.csv", storage);
+		entry.setLobsAsEntries(true);
+		entry.setLobColumnNames("COL1", "COL2");
+		
+		StorageExport export = new StorageExport();
+		export.add(entry);
+		export.setPassword("testcase");
+		
+		File fiArchive = export(export, "aesarchive_streams.zip");
+		
+		String[] sLines = readEntry(fiArchive, "testcase", "streams.csv").split("\n");
+		
+		Assert.assertEquals(3, sLines.length);
+		
+		GeneratorStorage storageBinary = new GeneratorStorage(3, iLength, ColumnType.Binary, ColumnType.Text);
+		
+		Object[] oExpected;
+		
+		for (int i = 1; i <= 3; i++)
+		{
+			Assert.assertEquals(i + ";\"streams.csv_lob/COL1/" + i + "\";\"streams.csv_lob/COL2/" + i + "\"", sLines[i - 1]);
+			
+			oExpected = storageBinary.createRow(i - 1, new Object[3]);
+			
+			Assert.assertArrayEquals((byte[])oExpected[1], readEntryBytes(fiArchive, "testcase", "streams.csv_lob/COL1/" + i));
+			Assert.assertEquals(oExpected[2], readEntry(fiArchive, "testcase", "streams.csv_lob/COL2/" + i));
+		}
+	}
+	
+	/**
+	 * Tests a fan-out export to archives with different passwords and separators.
+	 */
+	@Test
+	public void createArchiveFanOut() throws Exception
+	{
+		final AtomicInteger iCreated = new AtomicInteger();
+		
+		GeneratorStorage storage = new GeneratorStorage(500, 16, GeneratorStorage.ColumnType.Text, GeneratorStorage.ColumnType.Binary)
+		{
+			@Override
+			protected Object[] createRow(int pRow, Object[] pData)
+			{
+				iCreated.incrementAndGet();
+				
+				return super.createRow(pRow, pData);
+			}
+		};
+		
+		StorageEntry entry = new StorageEntry("fanout.csv", storage);
+		entry.setLobsAsEntries(true);
+		
+		StorageExport export = new StorageExport();
+		export.add(entry);
+		export.add(new StorageEntry("first.csv", createStorage()));
+		export.setPassword("testcase");
+		
+		File[] fiArchives = new File[3];
+		FileOutputStream[] fos = new FileOutputStream[3];
+		
+		for (int i = 0; i < fiArchives.length; i++)
+		{
+			fiArchives[i] = new File(System.getProperty("java.io.tmpdir"), "aesarchive_fanout" + i + ".zip");
+			fos[i] = new FileOutputStream(fiArchives[i]);
+		}
+		
+		ExportTarget target1 = new ExportTarget(fos[0]);
+		ExportTarget target2 = new ExportTarget(fos[1], "other");
+		ExportTarget target3 = new ExportTarget(fos[2], null, ",");
+		
+		EntryReport[][] reports;
+		
+		try
+		{
+			reports = export.export(target1, target2, target3);
+		}
+		finally
+		{
+			for (int i = 0; i < fos.length; i++)
+			{
+				fos[i].close();
+			}
+		}
+
+		//fetched once
+		Assert.assertEquals(500, iCreated.get());
+		
+		Assert.assertEquals(3, reports.length);
+		
+		//entry, LOB column and second entry
+		Assert.assertEquals(3, reports[0].length);
+		Assert.assertEquals("fanout.csv_lob/COL2", reports[0][1].getName());
+		Assert.assertEquals(500, reports[2][0].getRowCount());
+		Assert.assertEquals(reports[0][0].getLength(), reports[1][0].getLength());
+		
+		String sData = readEntry(fiArchives[0], "testcase", "fanout.csv");
+		
+		Assert.assertEquals(500, sData.split("\n").length);
+		Assert.assertEquals(sData, readEntry(fiArchives[1], "other", "fanout.csv"));
+		Assert.assertEquals(sData.replace(";", ","), readEntry(fiArchives[2], "testcase", "fanout.csv"));
+		
+		Assert.assertArrayEquals(readEntryBytes(fiArchives[0], "testcase", "fanout.csv_lob/COL2/42"),
+				                 readEntryBytes(fiArchives[1], "other", "fanout.csv_lob/COL2/42"));
+		Assert.assertArrayEquals(readEntryBytes(fiArchives[0], "testcase", "fanout.csv_lob/COL2/42"),
+				                 readEntryBytes(fiArchives[2], "testcase", "fanout.csv_lob/COL2/42"));
+		
+		Assert.assertEquals(readEntry(fiArchives[0], "testcase", "first.csv"), readEntry(fiArchives[1], "other", "first.csv"));
+	}
+	
+	/**
+	 * Tests reading records with a cursor which reuses the record, compared with fetching pages.
+	 */
+	@Test
+	public void createArchiveWithCursor() throws Exception
+	{
+		final AtomicInteger iFetches = new AtomicInteger();
+		
+		GeneratorStorage[] storages = new GeneratorStorage[2];
+		
+		for (int i = 0; i < storages.length; i++)
+		{
+			storages[i] = new GeneratorStorage(2500, 12, GeneratorStorage.ColumnType.Text, GeneratorStorage.ColumnType.Number)
+			{
+				@Override
+				protected List<Object[]> executeFetch(ICondition pFilter, SortDefinition pSort, int pFromRow, int pMinimumRowCount) throws DataSourceException
+				{
+					iFetches.incrementAndGet();
+					
+					return super.executeFetch(pFilter, pSort, pFromRow, pMinimumRowCount);
+				}
+			};
+		}
+		
+		storages[1].setCursorEnabled(false);
+		
+		SortDefinition sort = new SortDefinition("COL1");
+		
+		StorageEntry entryCursorSorted = new StorageEntry("cursor_sorted.csv", storages[0], null, sort);
+		entryCursorSorted.setSortMode(SortMode.Export);
+
+		StorageEntry entryFetchSorted = new StorageEntry("fetch_sorted.csv", storages[1], null, sort);
+		entryFetchSorted.setSortMode(SortMode.Export);
+		
+		StorageExport export = new StorageExport();
+		export.add(new StorageEntry("cursor.csv", storages[0]));
+		export.add(entryCursorSorted);
+		export.setPassword("testcase");
+		export.setSortBufferSize(1000);
+		
+		File fiArchive = export(export, "aesarchive_cursor.zip");
+		
+		Assert.assertEquals(0, iFetches.get());
+		
+		export = new StorageExport();
+		export.add(new StorageEntry("fetch.csv", storages[1]));
+		export.add(entryFetchSorted);
+		export.setPassword("testcase");
+		export.setSortBufferSize(1000);
+		
+		File fiArchiveFetch = export(export, "aesarchive_fetch.zip");
+		
+		Assert.assertTrue(iFetches.get() > 0);
+		
+		String sData = readEntry(fiArchive, "testcase", "cursor.csv");
+		
+		Assert.assertEquals(2500, sData.split("\n").length);
+		Assert.assertEquals(readEntry(fiArchiveFetch, "testcase", "fetch.csv"), sData);
+		
+		String[] sSorted = readEntry(fiArchive, "testcase", "cursor_sorted.csv").split("\n");
+		
+		Assert.assertEquals(2500, sSorted.length);
+		
+		for (int i = 1; i < sSorted.length; i++)
+		{
+			Assert.assertTrue(sSorted[i - 1].split(";")[1].compareTo(sSorted[i].split(";")[1]) <= 0);
+		}
+
+		Assert.assertEquals(readEntry(fiArchiveFetch, "testcase", "fetch_sorted.csv"), readEntry(fiArchive, "testcase", "cursor_sorted.csv"));
+	}
+	
+	/**
+	 * Tests parallel encryption of large, stored, empty and tiny entries.
+	 */
+	@Test
+	public void createArchiveParallelEncryption() throws Exception
+	{
+		GeneratorStorage storage = GeneratorStorage.create(30000, 4, 40);
+		
+		StorageEntry entryStored = new StorageEntry("stored.csv", storage);
+		entryStored.setCompressionLevel(StorageEntry.COMPRESSION_STORE);
+		
+		StorageEntry[] entries = new StorageEntry[] {new StorageEntry("large.csv", storage), 
+		                                             entryStored,
+		                                             new StorageEntry("empty.csv", GeneratorStorage.create(0, 1, 10)),
+		                                             new StorageEntry("tiny.csv", GeneratorStorage.create(1, 1, 10))};
+		
+		StorageExport export = new StorageExport();
+		export.setPassword("testcase");
+		
+		for (StorageEntry entry : entries)
+		{
+			export.add(entry);
+		}
+		
+		File fiSerial = export(export, "aesarchive_serial.zip");
+		
+		export.setEncryptionThreads(4);
+		
+		File fiParallel = export(export, "aesarchive_parallel.zip");
+		
+		ZipFile zip = new ZipFile(fiParallel);
+		
+		Assert.assertEquals(entries.length, zip.getFileHeaders().size());
+		
+		for (StorageEntry entry : entries)
+		{
+			FileHeader header = zip.getFileHeader(entry.getName());
+			
+			Assert.assertTrue(header.isEncrypted());
+			Assert.assertEquals(2, header.getAesExtraDataRecord().getVersionNumber());
+			Assert.assertEquals(Zip4jConstants.AES_STRENGTH_256, header.getAesExtraDataRecord().getAesStrength());
+			
+			if (header.getUncompressedSize() > 0)
+			{
+				Assert.assertEquals(readEntry(fiSerial, "testcase", entry.getName()), readEntry(fiParallel, "testcase", entry.getName()));
+			}
+		}
+		
+		Assert.assertTrue(fiParallel.length() > 2 * ParallelAesOutputStream.SEGMENT_SIZE);
+		Assert.assertEquals(0, zip.getFileHeader("stored.csv").getAesExtraDataRecord().getCompressionMethod());
+		Assert.assertEquals(0, zip.getFileHeader("empty.csv").getUncompressedSize());
+		
+		try
+		{
+			readEntry(fiParallel, "wrong", "large.csv");
+			
+			Assert.fail("Wrong password was accepted!");
+		}
+		catch (Exception ex)
+		{
+			//expected
+		}
+	}
+	
+	/**
+	 * Tests that targets with own parameters are encrypted if a password is available.
+	 */
+	@Test
+	public void createArchiveTargetParameters() throws Exception
+	{
+		StorageExport export = new StorageExport();
+		export.add(new StorageEntry("first.csv", createStorage()));
+		export.setPassword("testcase");
+		
+		ZipParameters paramsUnencrypted = new ZipParameters();
+		paramsUnencrypted.setEncryptFiles(false);
+		
+		File[] fiArchives = new File[2];
+		FileOutputStream[] fos = new FileOutputStream[2];
+		
+		for (int i = 0; i < fiArchives.length; i++)
+		{
+			fiArchives[i] = new File(System.getProperty("java.io.tmpdir"), "aesarchive_parameters" + i + ".zip");
+			fos[i] = new FileOutputStream(fiArchives[i]);
+		}
+		
+		ExportTarget target1 = new ExportTarget(fos[0], "other");
+		target1.setParameters(new ZipParameters());
+		
+		ExportTarget target2 = new ExportTarget(fos[1]);
+		target2.setParameters(paramsUnencrypted);
+		
+		try
+		{
+			export.export(target1, target2);
+		}
+		finally
+		{
+			for (int i = 0; i < fos.length; i++)
+			{
+				fos[i].close();
+			}
+		}
+		
+		String[] sPasswords = new String[] {"other", "testcase"};
+		
+		for (int i = 0; i < fiArchives.length; i++)
+		{
+			FileHeader header = new ZipFile(fiArchives[i]).getFileHeader("first.csv");
+			
+			Assert.assertTrue(header.isEncrypted());
+			Assert.assertEquals(Zip4jConstants.AES_STRENGTH_256, header.getAesExtraDataRecord().getAesStrength());
+			
+			Assert.assertEquals(readEntry(fiArchives[i], sPasswords[i], "first.csv"), readEntry(fiArchives[(i + 1) % 2], sPasswords[(i + 1) % 2], "first.csv"));
+			
+			for (String sPassword : new String[] {null, "wrong"})
+			{
+				try
+				{
+					readEntry(fiArchives[i], sPassword, "first.csv");
+					
+					Assert.fail("Archive was read with password " + sPassword + "!");
+				}
+				catch (Exception ex)
+				{
+					//expected
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Tests column statistics and the block index, with adaptive compression, spooled entries and
+	 * parallel encryption.
+	 */
+	@Test
+	public void createArchiveWithIndex() throws Exception
+	{
+		StorageEntry entry = new StorageEntry("indexed.csv", GeneratorStorage.create(5000, 1, 16));
+		entry.setIndexBlockSize(300);
+		entry.setColumnStatistics(true);
+		
+		StorageEntry entryLobs = new StorageEntry("indexed_lobs.csv", new GeneratorStorage(1200, 16, GeneratorStorage.ColumnType.Text, 
+				                                                                                      GeneratorStorage.ColumnType.Binary));
+		entryLobs.setIndexBlockSize(250);
+		entryLobs.setLobsAsEntries(true);
+		
+		StorageExport export = new StorageExport();
+		export.add(entry);
+		export.add(entryLobs);
+		export.setAdaptiveCompression(true);
+		
+		File fiArchive = export(export, "archive_index.zip");
+		
+		checkBlocks(fiArchive, "indexed.csv", 5000, 300);
+		checkBlocks(fiArchive, "indexed_lobs.csv", 1200, 250);
+		
+		ColumnStatistics[] statistics = export.getReports()[0].getStatistics();
+		
+		Assert.assertEquals(4, statistics.length);
+		Assert.assertEquals("ID", statistics[0].getName());
+		Assert.assertEquals(BigDecimal.valueOf(1), statistics[0].getMin());
+		Assert.assertEquals(BigDecimal.valueOf(5000), statistics[0].getMax());
+		
+		for (ColumnStatistics stats : statistics)
+		{
+			Assert.assertEquals(0, stats.getNullCount());
+			Assert.assertTrue(stats.toString(), Math.abs(stats.getDistinctCount() - 5000) < 5000 * 0.05);
+		}
+		
+		Assert.assertNull(export.getReports()[1].getStatistics());
+		
+		String[] sStatistics = readEntry(fiArchive, null, "indexed.csv_stats.csv").split("\n");
+		
+		Assert.assertEquals("COLUMN;MIN;MAX;NULL_COUNT;DISTINCT_COUNT", sStatistics[0]);
+		Assert.assertEquals("\"ID\";1;5000;0;" + statistics[0].getDistinctCount(), sStatistics[1]);
+		
+		//the same data and compression lead to the same blocks
+		export.setPassword("testcase");
+		export.setEncryptionThreads(2);
+		
+		File fiEncrypted = export(export, "aesarchive_index.zip");
+		
+		Assert.assertEquals(readEntry(fiArchive, null, "indexed.csv_index.csv"), readEntry(fiEncrypted, "testcase", "indexed.csv_index.csv"));
+		Assert.assertEquals(readEntry(fiArchive, null, "indexed.csv"), readEntry(fiEncrypted, "testcase", "indexed.csv"));
+	}
+	
+	/**
+	 * Tests column statistics with values of different types.
+	 */
+	@Test
+	public void columnStatisticsMixedTypes() throws Exception
+	{
+		//numbers are compared by value
+		ColumnStatistics stats = new ColumnStatistics("NUMBER");
+		stats.add(Integer.valueOf(10));
+		stats.add(BigDecimal.valueOf(9));
+		stats.add(Double.valueOf(9.5));
+		stats.add(Long.valueOf(12));
+		stats.add(BigDecimal.valueOf(115, 1));
+		
+		Assert.assertEquals(BigDecimal.valueOf(9), stats.getMin());
+		Assert.assertEquals(Long.valueOf(12), stats.getMax());
+		
+		Assert.assertTrue(ColumnStatistics.compare(Integer.valueOf(10), BigDecimal.valueOf(9)) > 0);
+		Assert.assertTrue(ColumnStatistics.compare(Double.valueOf(Double.NaN), Integer.valueOf(1)) > 0);
+		
+		//the sort uses the same order
+		MetaData mdata = new MetaData();
+		mdata.addColumnMetaData(new ColumnMetaData("NUMBER", BigDecimalDataType.TYPE_IDENTIFIER));
+		
+		ExternalSort.RowComparator comparator = new ExternalSort.RowComparator(mdata, new SortDefinition("NUMBER"));
+		
+		Assert.assertTrue(comparator.compare(new Object[] {Integer.valueOf(10)}, new Object[] {BigDecimal.valueOf(9)}) > 0);
+		
+		//other types have no order
+		stats = new ColumnStatistics("VALUE");
+		stats.add(Integer.valueOf(5));
+		stats.add(BigDecimal.valueOf(3));
+		stats.add("Text");
+		stats.add(new Timestamp(0));
+		stats.add(null);
+		
+		Assert.assertNotNull(stats.getMin());
+		Assert.assertNotNull(stats.getMax());
+		Assert.assertEquals(1, stats.getNullCount());
+		Assert.assertEquals(4, stats.getDistinctCount());
+	}
+	
 }	// StorageExportTest